@@ -0,0 +1,313 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The purpose of this class is to solve puzzles by jumping straight back to the placement that caused a dead end
+ * The free spots are filled in a fixed order, row by row. For every spot, the search keeps a conflict set:
+ * the earlier spots whose placements ruled out its candidates. A candidate is ruled out by the earliest spot that
+ * rules it out, either a neighbor whose side doesn't fit, or the spot that used its piece.
+ * When a spot runs out of candidates, the search jumps back to the latest spot in its conflict set, skipping every
+ * spot in between, since changing them could not have helped, and that spot takes on the rest of the conflict set.
+ * Every dead end is also a nogood: the placements in its conflict set can never all be part of a solution.
+ * Nogoods are kept in a table of fixed size, found by the latest placement in them, so when that placement is made
+ * again with the others still in place, it is ruled out right away instead of the dead end being found again.
+ * A new nogood replaces whatever was in its slot, so the table never grows
+ * Nogoods only depend on the puzzle, so they are kept from one solve to the next as long as the EdgeTable is the same.
+ * A solve can also be given a Random, to try the candidates in a random order, and a number of pieces to place before giving up,
+ * which is what RestartSolver uses
+ */
+public class BackjumpSolver implements Solver {
+
+	//the number of nogoods kept, by default
+	public static final int DEFAULT_NOGOODS = 1 << 16;
+
+	//the number of slots in the nogood table, a power of 2
+	private int nogoodSlots;
+
+	private EdgeTable table;
+	private int words;
+	//the free spots in the order they are filled, and the place of every spot in that order, or -1 if it is fixed
+	private int[] order;
+	private int[] levelOf;
+	//the candidate placed at every level
+	private int[] value;
+	//the level that used every piece, FIXED if a fixed spot has it, or -1
+	private int[] usedBy;
+	private static final int FIXED = -2;
+	//the candidates not tried yet at every level
+	private long[][] remaining;
+	//the conflict set of every level, as a bitset of levels
+	private long[][] conflicts;
+	private int conflictWords;
+	//the nogoods: each one is the spot and candidate of its latest placement, then the spot and candidate of the others
+	private int[][] nogoods;
+	private long nodes;
+	//the order candidates are tried in is random if this isn't null
+	private Random random;
+	//the most pieces a solve places before giving up, and whether the last solve gave up
+	private long maxNodes;
+	private boolean gaveUp;
+
+	//Constructs a BackjumpSolver with the default size of nogood table
+	public BackjumpSolver() {
+		this(DEFAULT_NOGOODS);
+	}
+
+	//Constructs a BackjumpSolver that keeps at most about the given number of nogoods
+	public BackjumpSolver(int maxNogoods) {
+		nogoodSlots = Integer.highestOneBit(Math.max(1, maxNogoods));
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	//returns true if the last solve stopped because it placed as many pieces as it was allowed to
+	public boolean gaveUp() {
+		return gaveUp;
+	}
+
+	public int[] solve(EdgeTable table, BooleanSupplier cancelled) {
+		return solve(table, cancelled, null, Long.MAX_VALUE);
+	}
+
+	//Solves the puzzle in the table, trying candidates in a random order if random isn't null,
+	//and giving up once maxNodes pieces have been placed
+	//Returns one candidate per spot, or null if there is no solution, the solver was cancelled, or it gave up
+	public int[] solve(EdgeTable table, BooleanSupplier cancelled, Random random, long maxNodes) {
+		if (table != this.table || nogoods == null)
+			nogoods = new int[nogoodSlots][];
+		this.table = table;
+		this.words = table.getWords();
+		this.random = random;
+		this.maxNodes = maxNodes;
+		this.nodes = 0;
+		this.gaveUp = false;
+		int spots = table.getSpots();
+		levelOf = new int[spots];
+		usedBy = new int[table.getPieceCount()];
+		Arrays.fill(usedBy, -1);
+		int free = 0;
+		for (int spot = 0; spot < spots; spot++) {
+			int candidate = table.getFixed(spot);
+			if (candidate < 0) {
+				levelOf[spot] = free++;
+				continue;
+			}
+			levelOf[spot] = -1;
+			if (usedBy[candidate / 4] != -1) return null;
+			usedBy[candidate / 4] = FIXED;
+			//fixed spots next to each other have to fit
+			for (int d = 0; d < 4; d++) {
+				int neighbor = table.getNeighbor(spot, d);
+				if (neighbor >= 0 && table.getFixed(neighbor) >= 0 && !table.fits(candidate, d, table.getFixed(neighbor)))
+					return null;
+			}
+		}
+		order = new int[free];
+		for (int spot = 0; spot < spots; spot++) {
+			if (levelOf[spot] >= 0)
+				order[levelOf[spot]] = spot;
+		}
+		value = new int[free];
+		remaining = new long[free][words];
+		conflictWords = (free + 63) / 64;
+		conflicts = new long[free + 1][conflictWords];
+
+		int level = 0;
+		if (free > 0)
+			start(0);
+		while (level < free) {
+			if (cancelled.getAsBoolean()) return null;
+			int candidate = next(level);
+			if (candidate >= 0) {
+				if (nodes >= maxNodes) {
+					gaveUp = true;
+					return null;
+				}
+				value[level] = candidate;
+				usedBy[candidate / 4] = level;
+				nodes++;
+				level++;
+				if (level < free)
+					start(level);
+				continue;
+			}
+			//no candidates are left here, so jump back to the latest spot in the conflict set
+			int back = latest(conflicts[level]);
+			if (back < 0) return null;
+			learn(level);
+			for (int w = 0; w < conflictWords; w++) {
+				conflicts[back][w] |= conflicts[level][w];
+			}
+			conflicts[back][back >>> 6] &= ~(1L << back);
+			for (int undo = level - 1; undo >= back; undo--) {
+				usedBy[value[undo] / 4] = -1;
+			}
+			level = back;
+		}
+
+		int[] solution = new int[spots];
+		for (int spot = 0; spot < spots; spot++) {
+			solution[spot] = (levelOf[spot] < 0) ? table.getFixed(spot) : value[levelOf[spot]];
+		}
+		return solution;
+	}
+
+	//Starts a level: works out its candidates, and the conflict set that explains the ones that are ruled out.
+	//Each ruled out candidate is blamed on the earliest level that rules it out
+	private void start(int level) {
+		int spot = order[level];
+		long[] candidates = remaining[level];
+		long[] conflict = conflicts[level];
+		Arrays.fill(conflict, 0);
+		//first everything fixed spots rule out, which is never anyone's fault
+		Arrays.fill(candidates, -1L);
+		int count = table.getPieceCount() * 4;
+		if ((count & 63) != 0)
+			candidates[words - 1] = (1L << count) - 1;
+		for (int piece = 0; piece < usedBy.length; piece++) {
+			if (usedBy[piece] == FIXED)
+				removePiece(candidates, piece);
+		}
+		for (int d = 0; d < 4; d++) {
+			int neighbor = table.getNeighbor(spot, d);
+			if (neighbor >= 0 && levelOf[neighbor] < 0)
+				and(candidates, table.getFits(table.getFixed(neighbor), (d + 2) % 4));
+		}
+		//then the earlier levels in order, each one blamed only if it rules out something new
+		for (int earlier = 0; earlier < level; earlier++) {
+			boolean blamed = removePiece(candidates, value[earlier] / 4);
+			for (int d = 0; d < 4; d++) {
+				if (table.getNeighbor(spot, d) == order[earlier])
+					blamed |= and(candidates, table.getFits(value[earlier], (d + 2) % 4));
+			}
+			if (blamed)
+				conflict[earlier >>> 6] |= 1L << earlier;
+		}
+	}
+
+	//Takes the next candidate to try at a level out of its remaining ones, skipping those a nogood rules out
+	//Returns -1 if there are none left
+	private int next(int level) {
+		long[] candidates = remaining[level];
+		int spot = order[level];
+		while (true) {
+			int candidate = (random == null) ? first(candidates) : pick(candidates);
+			if (candidate < 0) return -1;
+			candidates[candidate >>> 6] &= ~(1L << candidate);
+			int[] nogood = nogoods[slot(spot, candidate)];
+			if (nogood == null || nogood[0] != spot || nogood[1] != candidate || !holds(nogood)) {
+				return candidate;
+			}
+			//the nogood's other placements are to blame
+			for (int i = 2; i < nogood.length; i += 2) {
+				int blamed = levelOf[nogood[i]];
+				conflicts[level][blamed >>> 6] |= 1L << blamed;
+			}
+		}
+	}
+
+	//returns the first candidate in a bitset, or -1 if it is empty
+	private int first(long[] candidates) {
+		for (int w = 0; w < words; w++) {
+			if (candidates[w] != 0)
+				return w * 64 + Long.numberOfTrailingZeros(candidates[w]);
+		}
+		return -1;
+	}
+
+	//returns a random candidate from a bitset, or -1 if it is empty
+	private int pick(long[] candidates) {
+		int count = 0;
+		for (int w = 0; w < words; w++) {
+			count += Long.bitCount(candidates[w]);
+		}
+		if (count == 0) return -1;
+		int skip = random.nextInt(count);
+		for (int w = 0; ; w++) {
+			int here = Long.bitCount(candidates[w]);
+			if (skip >= here) {
+				skip -= here;
+				continue;
+			}
+			long bits = candidates[w];
+			for (; skip > 0; skip--) {
+				bits &= bits - 1;
+			}
+			return w * 64 + Long.numberOfTrailingZeros(bits);
+		}
+	}
+
+	//returns true if the other placements of a nogood are all still in place
+	private boolean holds(int[] nogood) {
+		for (int i = 2; i < nogood.length; i += 2) {
+			if (value[levelOf[nogood[i]]] != nogood[i + 1])
+				return false;
+		}
+		return true;
+	}
+
+	//Saves the conflict set of a level that ran out of candidates as a nogood, found by its latest placement
+	private void learn(int level) {
+		long[] conflict = conflicts[level];
+		int size = 0;
+		for (int w = 0; w < conflictWords; w++) {
+			size += Long.bitCount(conflict[w]);
+		}
+		int latest = latest(conflict);
+		int[] nogood = new int[size * 2];
+		nogood[0] = order[latest];
+		nogood[1] = value[latest];
+		int i = 2;
+		for (int w = 0; w < conflictWords; w++) {
+			long bits = conflict[w];
+			while (bits != 0) {
+				int blamed = w * 64 + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+				if (blamed == latest) continue;
+				nogood[i++] = order[blamed];
+				nogood[i++] = value[blamed];
+			}
+		}
+		nogoods[slot(nogood[0], nogood[1])] = nogood;
+	}
+
+	//returns the slot in the nogood table for a placement
+	private int slot(int spot, int candidate) {
+		int hash = spot * 0x9E3779B1 + candidate * 0x85EBCA77;
+		return (hash ^ (hash >>> 16)) & (nogoodSlots - 1);
+	}
+
+	//returns the latest level in a conflict set, or -1 if it is empty
+	private int latest(long[] conflict) {
+		for (int w = conflict.length - 1; w >= 0; w--) {
+			if (conflict[w] != 0)
+				return w * 64 + 63 - Long.numberOfLeadingZeros(conflict[w]);
+		}
+		return -1;
+	}
+
+	//Takes the 4 candidates of a piece out of a bitset, returning true if any of them were in it
+	private boolean removePiece(long[] candidates, int piece) {
+		boolean changed = false;
+		for (int candidate = piece * 4; candidate < piece * 4 + 4; candidate++) {
+			long bit = 1L << candidate;
+			changed |= (candidates[candidate >>> 6] & bit) != 0;
+			candidates[candidate >>> 6] &= ~bit;
+		}
+		return changed;
+	}
+
+	//ANDs a bitset into candidates, returning true if anything was taken out
+	private boolean and(long[] candidates, long[] mask) {
+		boolean changed = false;
+		for (int w = 0; w < words; w++) {
+			long kept = candidates[w] & mask[w];
+			changed |= kept != candidates[w];
+			candidates[w] = kept;
+		}
+		return changed;
+	}
+}
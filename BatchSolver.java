@@ -0,0 +1,278 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The purpose of this class is to solve many puzzles at once, without the game, and report how it went
+ * It reads puzzle files (binary PuzzleFiles ending in .puz, or PuzzleText files), whole directories of them,
+ * or PuzzleText from standard input when the name is "-"
+ * The puzzles are solved on a fixed number of threads. A PortfolioSolver keeps several threads busy for every puzzle,
+ * so with one, fewer puzzles are solved at once, and the number of busy threads stays the same
+ * Puzzles are read only as fast as they are solved, so a huge batch never has to be in memory at once
+ * Every puzzle gets a result line, "# name index status milliseconds", and every solved puzzle is written as PuzzleText,
+ * so the output can be read back with PuzzleText. A puzzle that takes too long is stopped, and a puzzle that
+ * throws an exception only fails itself. At the end the throughput and the 50th, 90th and 99th percentile times are written
+ * The puzzles are solved with a PropagationSolver, or with another Solver if one is named with -solver
+ * Usage: java BatchSolver [-threads n] [-timeout ms] [-solver name] [-out file] file|directory|- ...
+ */
+public class BatchSolver {
+
+	//the Solver used when none is named
+	public static final String DEFAULT_SOLVER = "propagate";
+
+	//the number of threads solving puzzles, and the number of puzzles solved at once
+	private int threads;
+	private int workers;
+	//the most milliseconds a puzzle is given, or 0 for no limit
+	private long timeoutMillis;
+	//where the results are written
+	private Writer out;
+	//the name of the Solver to use (see newSolver)
+	private String solverName = DEFAULT_SOLVER;
+
+	//the threads that solve the puzzles
+	private ThreadPoolExecutor pool;
+	//the thread that stops puzzles that take too long
+	private ScheduledExecutorService watchdog;
+
+	//how many puzzles ended each way, and how long each one took
+	private int solved, unsolvable, timedOut, failed;
+	private List<Long> nanos = Collections.synchronizedList(new ArrayList<Long>());
+
+	//Constructs a BatchSolver that writes its results to out
+	public BatchSolver(int threads, long timeoutMillis, Writer out) {
+		this.threads = threads;
+		this.timeoutMillis = timeoutMillis;
+		this.out = out;
+		watchdog = Executors.newSingleThreadScheduledExecutor();
+	}
+
+	//Sets the Solver used for every puzzle, by its name (see newSolver), or null to use the default one
+	public void setSolver(String solverName) {
+		if (solverName == null)
+			solverName = DEFAULT_SOLVER;
+		newSolver(solverName);
+		this.solverName = solverName;
+	}
+
+	//returns a new Solver from its name
+	public static Solver newSolver(String name) {
+		if (name.equals("propagate")) return new PropagationSolver();
+		if (name.equals("backjump")) return new BackjumpSolver();
+		if (name.equals("restart")) return new RestartSolver(0);
+		if (name.equals("middle")) return new MeetInMiddleSolver();
+		if (name.equals("tiles")) return new MacroTileSolver();
+		if (name.equals("portfolio")) return PortfolioSolver.newDefault(1);
+		throw new IllegalArgumentException("unknown solver " + name);
+	}
+
+	//Solves every puzzle in the files and directories, then writes the summary
+	public void run(List<String> names) throws IOException, InterruptedException {
+		Solver solver = newSolver(solverName);
+		int width = (solver instanceof PortfolioSolver) ? ((PortfolioSolver) solver).getWidth() : 1;
+		workers = Math.max(1, threads / width);
+		//a full queue makes the reading thread solve the puzzle itself, which keeps it from reading too far ahead
+		pool = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(workers * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+		long start = System.nanoTime();
+		for (String name : names) {
+			if (name.equals("-")) {
+				readText("-", new InputStreamReader(System.in, StandardCharsets.UTF_8));
+			} else {
+				readFile(new File(name));
+			}
+		}
+		pool.shutdown();
+		pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+		watchdog.shutdownNow();
+		writeSummary(System.nanoTime() - start);
+		out.flush();
+	}
+
+	//Reads a file, or every file in a directory, and hands out its puzzles
+	private void readFile(File file) {
+		if (file.isDirectory()) {
+			File[] files = file.listFiles();
+			if (files == null) return;
+			Arrays.sort(files);
+			for (File f : files) {
+				readFile(f);
+			}
+		}
+		else if (file.getName().endsWith(".puz")) {
+			try {
+				PuzzleFile puzzleFile = new PuzzleFile(file.toPath());
+				for (int i = 0; i < puzzleFile.size(); i++) {
+					submit(file.getPath(), i, puzzleFile.get(i).toPuzzle());
+				}
+			} catch (IOException | RuntimeException e) {
+				result(file.getPath(), -1, "error " + e.getMessage(), 0, null);
+			}
+		}
+		else {
+			try (Reader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+				readText(file.getPath(), in);
+			} catch (IOException e) {
+				result(file.getPath(), -1, "error " + e.getMessage(), 0, null);
+			}
+		}
+	}
+
+	//Reads PuzzleText and hands out its puzzles. A mistake in the text ends that file, but not the batch
+	private void readText(String name, Reader in) {
+		PuzzleText text = new PuzzleText(in);
+		int index = 0;
+		try {
+			for (Puzzle puzzle = text.next(); puzzle != null; puzzle = text.next()) {
+				submit(name, index++, puzzle);
+			}
+		} catch (IOException | RuntimeException e) {
+			result(name, index, "error " + e.getMessage(), 0, null);
+		}
+	}
+
+	//Gives a puzzle to the threads to solve
+	private void submit(final String name, final int index, final Puzzle puzzle) {
+		pool.execute(new Runnable() {
+			public void run() {
+				solve(name, index, puzzle);
+			}
+		});
+	}
+
+	//Solves one puzzle on the current thread, and writes its result
+	private void solve(String name, int index, Puzzle puzzle) {
+		final Thread thread = Thread.currentThread();
+		Deadline deadline = new Deadline(thread);
+		ScheduledFuture<?> timer = null;
+		if (timeoutMillis > 0)
+			timer = watchdog.schedule(deadline, timeoutMillis, TimeUnit.MILLISECONDS);
+		long start = System.nanoTime();
+		String status;
+		try {
+			EdgeTable table = new EdgeTable(puzzle);
+			int[] solution = newSolver(solverName).solve(table, new BooleanSupplier() {
+				public boolean getAsBoolean() {
+					return thread.isInterrupted();
+				}
+			});
+			if (solution != null)
+				table.apply(puzzle, solution);
+			status = puzzle.isSolved() ? "solved" : (thread.isInterrupted() ? "timeout" : "unsolvable");
+		} catch (RuntimeException | StackOverflowError e) {
+			status = "error " + e;
+		} finally {
+			deadline.stop();
+			if (timer != null)
+				timer.cancel(false);
+		}
+		long time = System.nanoTime() - start;
+		//clears an interrupt that came too late to stop the solve, so the next puzzle isn't stopped by it
+		//Once the deadline is stopped no more can come, even from a watchdog task that had already started
+		Thread.interrupted();
+		nanos.add(time);
+		result(name, index, status, time, status.equals("solved") ? puzzle : null);
+	}
+
+	//Interrupts the thread solving a puzzle when its time is up, unless the solve is already over
+	//Both happen under the same lock, so once stop() returns the thread can't be interrupted by this deadline
+	private static class Deadline implements Runnable {
+		private Thread thread;
+		private boolean stopped;
+
+		Deadline(Thread thread) {
+			this.thread = thread;
+		}
+
+		public synchronized void run() {
+			if (!stopped)
+				thread.interrupt();
+		}
+
+		synchronized void stop() {
+			stopped = true;
+		}
+	}
+
+	//Writes the result of one puzzle, and its solution if it was solved
+	private synchronized void result(String name, int index, String status, long time, Puzzle solution) {
+		if (status.equals("solved")) solved++;
+		else if (status.equals("unsolvable")) unsolvable++;
+		else if (status.equals("timeout")) timedOut++;
+		else failed++;
+		try {
+			out.append("# ").append(name).append(' ').append(Integer.toString(index)).append(' ')
+					.append(status.replace('\n', ' ')).append(' ')
+					.append(String.format("%.3f", time / 1e6)).append('\n');
+			if (solution != null)
+				PuzzleText.write(solution, out);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	//Writes how many puzzles ended each way, how many were solved per second, and the percentile times
+	private synchronized void writeSummary(long totalNanos) throws IOException {
+		Long[] times = nanos.toArray(new Long[0]);
+		Arrays.sort(times);
+		int total = solved + unsolvable + timedOut + failed;
+		out.append(String.format("# %d puzzles on %d threads, %d at once: %d solved, %d unsolvable, %d timed out, %d failed%n",
+				total, threads, workers, solved, unsolvable, timedOut, failed));
+		out.append(String.format("# %.3f seconds, %.1f puzzles/sec%n", totalNanos / 1e9, times.length / (totalNanos / 1e9)));
+		out.append(String.format("# p50 %.3f ms, p90 %.3f ms, p99 %.3f ms%n",
+				percentile(times, 50) / 1e6, percentile(times, 90) / 1e6, percentile(times, 99) / 1e6));
+	}
+
+	//returns the smallest time that at least the given percent of times are at or below, or 0 if there are none
+	private static long percentile(Long[] sorted, int percent) {
+		if (sorted.length == 0) return 0;
+		int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+		return sorted[Math.max(0, rank - 1)];
+	}
+
+	public static void main(String[] args) throws Exception {
+		int threads = Runtime.getRuntime().availableProcessors();
+		long timeoutMillis = 0;
+		String outName = null;
+		String solverName = null;
+		List<String> names = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-threads") && i + 1 < args.length) threads = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-timeout") && i + 1 < args.length) timeoutMillis = Long.parseLong(args[++i]);
+			else if (args[i].equals("-out") && i + 1 < args.length) outName = args[++i];
+			else if (args[i].equals("-solver") && i + 1 < args.length) solverName = args[++i];
+			else names.add(args[i]);
+		}
+		if (names.isEmpty()) {
+			System.err.println("Usage: java BatchSolver [-threads n] [-timeout ms] [-solver name] [-out file] file|directory|- ...");
+			System.exit(2);
+		}
+		Writer out = (outName == null)
+				? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+				: Files.newBufferedWriter(new File(outName).toPath(), StandardCharsets.UTF_8);
+		try {
+			BatchSolver batch = new BatchSolver(threads, timeoutMillis, out);
+			batch.setSolver(solverName);
+			batch.run(names);
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -91,25 +91,16 @@ public class Board {
 		return numCols;
 	}
 	// toString to print out the board object. A piece on the board is represented as a 1
-	// An empty space is represented as a 0
+	// An empty space is represented as a 0. PuzzleText writes the whole board, with its pieces
 	public String toString() {
+		StringBuilder text = new StringBuilder();
 		for(int i = 0; i < piece.length; i++) {
 			for(int j = 0; j < piece[i].length; j++) {
-				if(piece[i][j] != null) {
-					System.out.print(1 + " ");
-				}
-				else {
-					System.out.print(0 + " ");
-				}
+				text.append(piece[i][j] != null ? "1 " : "0 ");
 			}
-			System.out.println();
+			text.append('\n');
 		}
-//		for(Piece[] p: piece){
-//			for(Piece p2 : p){
-//				System.out.println(p);
-//			}
-//		}
-		return "";
+		return text.toString();
 	}
 
 
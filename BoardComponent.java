@@ -1,258 +1,498 @@
-
-
-import java.awt.Container;
-import java.awt.Graphics;
-import java.awt.Graphics2D;
-import java.util.List;
-
-import javax.swing.JComponent;
-
-/**
- * BoardComponent.java
- * 
- * A BoardComponent is a visual representation of a Puzzle
- * object. It can hold PieceComponents, and it displays them
- * when they are placed onto the BoardComponent. A BoardComponent
- * can also be solved, where all the PieceComponents are 
- * automatically placed in a solved state.
- * 
- * The HolderPanel is needed in the constructor to access 
- * the HolderPanel when removing PieceComponents from the 
- * BoardComponent.
- * 
- * @author Ajay Suresh and Peter Meglis
- * 6 May 2016
- */
-public class BoardComponent extends JComponent {
-
-	private Puzzle puzzle;
-	private HolderPanel holderPanel;
-	private PieceComponent[][] pieces = new PieceComponent[3][3];
-
-
-	/*
-	 * Constructs a BoardComponent object based on a Puzzle object,
-	 * and the HolderPanel from Display.java. 
-	 */
-	public BoardComponent(Puzzle puzzle, HolderPanel holderPanel){
-		this.puzzle = puzzle;
-		this.holderPanel = holderPanel;
-	}
-
-	/*
-	 * Paints the BoardComponent from the given Graphics object. The 
-	 * BoardComponent looks like a 3x3 grid.
-	 */
-	public void paintComponent(Graphics g){
-		int width = this.getWidth();
-		int height = this.getHeight();
-
-		int leftX = width / 3;
-		int rightX = 2 * width / 3;
-		int topY = height / 3;
-		int bottomY = 2 * height / 3;
-
-		Graphics2D g2 = (Graphics2D) g; 
-
-		g2.drawRect(0,0,width-1, height-1);
-
-		// drawing horizontal lines
-		g2.drawLine(0,topY, width,topY);
-		g2.drawLine(0,bottomY,width,bottomY);
-
-		// drawing vertical lines
-		g2.drawLine(leftX,0,leftX,height);
-		g2.drawLine(rightX,0,rightX,height);
-	}
-
-	/*
-	 * Checks if a PieceComponent can fit onto the BoardComponent at 
-	 * a certain row and column.
-	 * 
-	 * Parameters:
-	 * 		PieceComponent piece = the PieceComponent to check if it can fit
-	 * 		int row = the row number of the space checked
-	 * 		int col = the column number of the space checked
-	 */
-	public boolean doesFit(PieceComponent pieceComp, int row, int col) {
-		return ((row > -1 && col > -1) 
-				&& puzzle.doesFit(pieceComp.getPiece(), row, col) 
-				&& pieces[row][col] == null);
-	}
-
-	/*
-	 * Sets a PieceComponent onto the BoardComponent at a given row and column, 
-	 * and also sets its Piece onto the Puzzle object.
-	 * 
-	 * Parameters:
-	 * 		PieceComponent pieceComp = the PieceComponent to set
-	 * 		int row = the row number to set the PieceComponent
-	 * 		int col = the column number to set the PieceComponent
-	 * 
-	 * Returns:
-	 * 		PieceComponent; the PieceComponent getting placed
-	 */
-	public PieceComponent setPieceComp(PieceComponent pieceComp, int row, int col) {
-		puzzle.setPiece(pieceComp.getPiece(), row, col);
-		pieces[row][col] = pieceComp;
-		return pieceComp;
-	}
-
-	/*
-	 * Gets the PieceComponent at a given row and column.
-	 * 
-	 * Parameters:
-	 * 		int row = the row number
-	 * 		int col = the col number
-	 * 
-	 * Returns:
-	 * 		PieceComponent; the PieceComponent at that location
-	 */
-	public PieceComponent getPieceComp(int row, int col) {
-		return pieces[row][col];
-	}
-
-	/*
-	 * Removes a PieceComponent from the BoardComponent at 
-	 * the given row and column.
-	 * 
-	 * Parameters:
-	 * 		int row = the row number
-	 * 		int col = the column number
-	 * 
-	 * Returns:
-	 * 		PieceComponent; the PieceComponent that gets removed
-	 */
-	public PieceComponent removePieceComp(int row, int col) {
-		puzzle.removePiece(row, col);
-		PieceComponent tempPiece = pieces[row][col];
-		pieces[row][col] = null;
-		return tempPiece;
-	}
-
-	/*
-	 * Resets the Puzzle object, and takes all the PieceComponents 
-	 * from the BoardComponent, and simply adds them to the HolderPanel.
-	 */
-	public void reset() {
-		puzzle.reset();
-		for (int row = 0; row < pieces.length; row++) {
-			for (int col = 0; col < pieces[0].length; col++) {
-				PieceComponent pieceComp = getPieceComp(row,col);
-				if (pieceComp != null) {
-					Container c = pieceComp.getParent();
-					c.remove(pieces[row][col]);
-					pieceComp.scaleImage(121);
-					removePieceComp(row,col);
-					holderPanel.addToPanel(pieceComp);
-					c.repaint();
-				}
-			}
-		}
-	}
-
-	/*
-	 * Checks if the Puzzle has been solved.
-	 * 
-	 * Returns:
-	 * 		boolean; true if it is solved, false if it isn't solved yet
-	 */
-	public boolean isSolved() {
-		return puzzle.isSolved();
-	}
-	
-	/*
-	 * Solves the puzzle, putting all the correct PieceComponents onto
-	 * the BoardComponent.
-	 */
-	public void solve() {
-		List<PieceComponent> pieceCompList = Display.pieceComps;
-		puzzle.solve();
-
-		for (int row = 0; row < pieces.length; row++) {
-			for (int col = 0; col < pieces[0].length; col++) {
-				boolean fits = false;	
-				for (int i = 0; !fits && i < pieceCompList.size(); i++) {
-					PieceComponent pieceComp = pieceCompList.get(i);
-					if (areEqual(puzzle.getPiece(row, col),pieceComp)){
-						setPieceComp(pieceComp, row, col);
-						holderPanel.removeFromPanel(pieceComp);
-						fits = true;
-					}
-				}
-			}
-		}
-	}
-	
-	/*
-	 * Checks to see if a PieceComponent's Piece is the same as another Piece.
-	 * 
-	 * Parameters:
-	 * 		Piece piece = the Piece object to check
-	 * 		PieceComponent pieceComp = the PieceComponent that holds 
-	 * 			a Piece object to check
-	 */
-	public static boolean areEqual(Piece piece, PieceComponent pieceComp) {
-		boolean areEqual = false;
-		if (pieceComp.getPiece().equals(piece)) {
-			areEqual = true;
-			for (int i = pieceComp.getOrientation(); i < piece.getOrientation(); i++) {
-				pieceComp.rotateGraphicsClockwise();
-			}
-		}
-		return areEqual;
-	}
-
-	
-	/*
-	 * Tests the solve method.
-	 */
-	public static void main(String[] args) {
-//		
-//		ArrayList<PieceComponent> pieces = new ArrayList<PieceComponent>();
-//
-//		pieces.add(new PieceComponent("resources\\puzzle pieces\\piece_1.png", new Piece(Side.CLUBOUT, Side.HEARTOUT, Side.DIAMONDIN, Side.CLUBIN)));
-//		pieces.add(new PieceComponent("resources\\puzzle pieces\\piece_2.png", new Piece(Side.SPADEOUT, Side.DIAMONDOUT, Side.SPADEIN, Side.HEARTIN)));
-//		pieces.add(new PieceComponent("resources\\puzzle pieces\\piece_3.png", new Piece(Side.HEARTOUT, Side.SPADEOUT, Side.HEARTIN, Side.CLUBIN)));
-//		pieces.add(new PieceComponent("resources\\puzzle pieces\\piece_4.png", new Piece(Side.HEARTOUT, Side.DIAMONDOUT, Side.CLUBIN, Side.CLUBIN)));
-//		pieces.add(new PieceComponent("resources\\puzzle pieces\\piece_5.png", new Piece(Side.SPADEOUT, Side.SPADEOUT, Side.HEARTIN, Side.CLUBIN)));
-//		pieces.add(new PieceComponent("resources\\puzzle pieces\\piece_6.png", new Piece(Side.HEARTOUT, Side.DIAMONDOUT, Side.DIAMONDIN, Side.HEARTIN)));
-//		pieces.add(new PieceComponent("resources\\puzzle pieces\\piece_7.png", new Piece(Side.SPADEOUT, Side.DIAMONDOUT, Side.HEARTIN, Side.DIAMONDIN)));
-//		pieces.add(new PieceComponent("resources\\puzzle pieces\\piece_8.png", new Piece(Side.CLUBOUT, Side.HEARTOUT, Side.SPADEIN, Side.HEARTIN)));
-//		pieces.add(new PieceComponent("resources\\puzzle pieces\\piece_9.png", new Piece(Side.DIAMONDOUT, Side.CLUBOUT, Side.CLUBIN, Side.DIAMONDIN)));
-//
-//		
-//		Piece piece = new Piece(Side.CLUBOUT, Side.HEARTOUT, Side.DIAMONDIN, Side.CLUBIN);
-//		System.out.println(areEqual(piece,pieces.get(1)));
-//		ArrayList<Piece> x = new ArrayList<Piece>();
-//		x.add(new Piece(Side.CLUB_OUT, Side.HEART_OUT, Side.DIAMOND_IN, Side.CLUB_IN));
-//		x.add(new Piece(Side.SPADE_OUT, Side.DIAMOND_OUT, Side.SPADE_IN, Side.HEART_IN));
-//		x.add(new Piece(Side.HEART_OUT, Side.SPADE_OUT, Side.SPADE_IN, Side.CLUB_IN));
-//		x.add(new Piece(Side.HEART_OUT, Side.DIAMOND_OUT, Side.CLUB_IN, Side.CLUB_IN));
-//		x.add(new Piece(Side.SPADE_OUT, Side.SPADE_OUT, Side.HEART_IN, Side.CLUB_IN));
-//		x.add(new Piece(Side.HEART_OUT, Side.DIAMOND_OUT, Side.DIAMOND_IN, Side.HEART_IN));
-//		x.add(new Piece(Side.SPADE_OUT, Side.DIAMOND_OUT, Side.HEART_IN, Side.DIAMOND_IN));
-//		x.add(new Piece(Side.CLUB_OUT, Side.HEART_OUT, Side.SPADE_IN, Side.HEART_IN));
-//		x.add(new Piece(Side.DIAMOND_OUT, Side.CLUB_OUT, Side.CLUB_IN, Side.DIAMOND_IN));
-//		Puzzle p = new Puzzle(3, 3, x);
-//		for(int row =0; row< p.getRows();row++){
-//			for(int col = 0; col < p.getCols(); col++){
-//				System.out.println(p.getPiece(row, col));
-//			}
-//		}
-//		p.solve();
-//		for(int row =0; row< p.getRows();row++){
-//			for(int col = 0; col < p.getCols(); col++){
-//				System.out.println(p.getPiece(row, col));
-//			}
-//		}
-//		System.out.println(p);
-	}
-
-
-
-
-
-
-
-}
+
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JComponent;
+
+/**
+ * BoardComponent.java
+ * 
+ * A BoardComponent is a visual representation of a Puzzle
+ * object. It can hold PieceComponents, and it displays them
+ * when they are placed onto the BoardComponent. A BoardComponent
+ * can also be solved, where all the PieceComponents are 
+ * automatically placed in a solved state.
+ * 
+ * The board can be zoomed and panned, so only part of a big
+ * board may be showing at once. Only the cells that are showing
+ * get painted, and when zoomed out the pieces are drawn from
+ * smaller copies of their images (see Mipmap.java).
+ * 
+ * The HolderPanel is needed in the constructor to access 
+ * the HolderPanel when removing PieceComponents from the 
+ * BoardComponent. The list of every PieceComponent is needed 
+ * to find the PieceComponent of a Piece by the Piece's id.
+ * 
+ * Whenever the Puzzle changes by itself (like being solved), the 
+ * BoardComponent compares it to the PieceComponents it has and only 
+ * moves the ones that changed, then repaints once.
+ * 
+ * @author Ajay Suresh and Peter Meglis
+ * 6 May 2016
+ */
+public class BoardComponent extends JComponent {
+
+	// the size of a cell (in pixels) when the board is not zoomed
+	public static final int CELL_SIZE = 150;
+	// the space around the grid, so the tabs of the outer pieces aren't cut off
+	public static final int INSET = 50;
+
+	private Puzzle puzzle;
+	private HolderPanel holderPanel;
+	private PieceComponent[][] pieces;
+	// the PieceComponent of every Piece, by the Piece's id
+	private PieceComponent[] pieceCompsById;
+	private BoardGeometry geometry;
+	private SolutionCache solutionCache;
+	private Rectangle damage = new Rectangle();
+
+
+	/*
+	 * Constructs a BoardComponent object based on a Puzzle object,
+	 * the HolderPanel from Display.java, and all of the PieceComponents
+	 * for the Puzzle's Pieces. The board has as many rows and columns 
+	 * as the Puzzle.
+	 */
+	public BoardComponent(Puzzle puzzle, HolderPanel holderPanel, List<PieceComponent> pieceComps){
+		this.puzzle = puzzle;
+		this.holderPanel = holderPanel;
+		int maxId = -1;
+		for (PieceComponent pieceComp : pieceComps) {
+			maxId = Math.max(maxId, pieceComp.getPiece().getId());
+		}
+		this.pieceCompsById = new PieceComponent[maxId + 1];
+		for (PieceComponent pieceComp : pieceComps) {
+			if (pieceComp.getPiece().getId() >= 0) {
+				pieceCompsById[pieceComp.getPiece().getId()] = pieceComp;
+			}
+		}
+		this.pieces = new PieceComponent[puzzle.getRows()][puzzle.getCols()];
+		this.geometry = new BoardGeometry(puzzle.getRows(), puzzle.getCols(), CELL_SIZE, INSET);
+	}
+
+	/*
+	 * Sets the bounds of the BoardComponent, and updates the size of 
+	 * the view the board is shown in.
+	 */
+	public void setBounds(int x, int y, int width, int height) {
+		super.setBounds(x, y, width, height);
+		geometry.setViewSize(width - 2 * INSET, height - 2 * INSET);
+	}
+
+	/*
+	 * Paints the BoardComponent from the given Graphics object. The 
+	 * BoardComponent looks like a grid with the placed PieceComponents 
+	 * on it. Only the cells that are inside the clip get painted, 
+	 * along with their neighbors, whose tabs may stick into the clip.
+	 */
+	public void paintComponent(Graphics g){
+		Graphics2D g2 = (Graphics2D) g;
+		Rectangle clip = g2.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+
+		int overhang = geometry.getOverhang();
+		int firstRow = Math.max(0, geometry.rowAt(clip.y - overhang));
+		int lastRow = Math.min(pieces.length - 1, geometry.rowAt(clip.y + clip.height + overhang));
+		int firstCol = Math.max(0, geometry.colAt(clip.x - overhang));
+		int lastCol = Math.min(pieces[0].length - 1, geometry.colAt(clip.x + clip.width + overhang));
+		if (firstRow > lastRow || firstCol > lastCol) return;
+
+		// drawing the grid lines, only inside the view
+		int viewRight = INSET + geometry.getViewWidth();
+		int viewBottom = INSET + geometry.getViewHeight();
+		Graphics2D grid = (Graphics2D) g2.create();
+		grid.clipRect(INSET, INSET, geometry.getViewWidth() + 1, geometry.getViewHeight() + 1);
+		int left = geometry.cellX(firstCol);
+		int right = geometry.cellX(lastCol + 1);
+		int top = geometry.cellY(firstRow);
+		int bottom = geometry.cellY(lastRow + 1);
+		for (int row = firstRow; row <= lastRow + 1; row++) {
+			int y = Math.min(geometry.cellY(row), viewBottom);
+			grid.drawLine(left, y, right, y);
+		}
+		for (int col = firstCol; col <= lastCol + 1; col++) {
+			int x = Math.min(geometry.cellX(col), viewRight);
+			grid.drawLine(x, top, x, bottom);
+		}
+		grid.dispose();
+
+		// drawing the pieces
+		int imageSize = geometry.getImageSize();
+		if (imageSize < CELL_SIZE) {
+			g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		}
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int col = firstCol; col <= lastCol; col++) {
+				PieceComponent pieceComp = pieces[row][col];
+				if (pieceComp != null) {
+					int x = geometry.cellX(col) - overhang;
+					int y = geometry.cellY(row) - overhang;
+					pieceComp.drawImage(g2, x, y, imageSize);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Gets the BoardGeometry, which converts between rows and columns
+	 * and xy coordinates on the BoardComponent.
+	 * 
+	 * Returns:
+	 * 		BoardGeometry; the geometry of the board
+	 */
+	public BoardGeometry getGeometry() {
+		return geometry;
+	}
+
+	/*
+	 * Repaints just one cell of the board, along with the parts
+	 * of its neighbors that its piece's tabs stick into.
+	 * 
+	 * Parameters:
+	 * 		int row = the row number
+	 * 		int col = the column number
+	 */
+	public void repaintCell(int row, int col) {
+		geometry.imageBounds(row, col, damage);
+		repaint(damage.x - 1, damage.y - 1, damage.width + 2, damage.height + 2);
+	}
+
+	/*
+	 * Zooms the board in or out, keeping the spot under the 
+	 * given point in the same place.
+	 * 
+	 * Parameters:
+	 * 		int x = the x coordinate to zoom around
+	 * 		int y = the y coordinate to zoom around
+	 * 		double factor = how much to multiply the zoom by
+	 */
+	public void zoomAt(int x, int y, double factor) {
+		geometry.zoomAt(x, y, factor);
+		repaint();
+	}
+
+	/*
+	 * Moves the view of the board by some number of pixels.
+	 * 
+	 * Parameters:
+	 * 		int dx = the pixels to move the board right
+	 * 		int dy = the pixels to move the board down
+	 */
+	public void panBy(int dx, int dy) {
+		geometry.panBy(dx, dy);
+		repaint();
+	}
+
+	/*
+	 * Checks if a PieceComponent can fit onto the BoardComponent at 
+	 * a certain row and column.
+	 * 
+	 * Parameters:
+	 * 		PieceComponent piece = the PieceComponent to check if it can fit
+	 * 		int row = the row number of the space checked
+	 * 		int col = the column number of the space checked
+	 */
+	public boolean doesFit(PieceComponent pieceComp, int row, int col) {
+		return ((row > -1 && col > -1) 
+				&& puzzle.doesFit(pieceComp.getPiece(), row, col) 
+				&& pieces[row][col] == null);
+	}
+
+	/*
+	 * Sets a PieceComponent onto the BoardComponent at a given row and column, 
+	 * and also sets its Piece onto the Puzzle object.
+	 * 
+	 * Parameters:
+	 * 		PieceComponent pieceComp = the PieceComponent to set
+	 * 		int row = the row number to set the PieceComponent
+	 * 		int col = the column number to set the PieceComponent
+	 * 
+	 * Returns:
+	 * 		PieceComponent; the PieceComponent getting placed
+	 */
+	public PieceComponent setPieceComp(PieceComponent pieceComp, int row, int col) {
+		puzzle.setPiece(pieceComp.getPiece(), row, col);
+		pieces[row][col] = pieceComp;
+		return pieceComp;
+	}
+
+	/*
+	 * Gets the PieceComponent at a given row and column.
+	 * 
+	 * Parameters:
+	 * 		int row = the row number
+	 * 		int col = the col number
+	 * 
+	 * Returns:
+	 * 		PieceComponent; the PieceComponent at that location
+	 */
+	public PieceComponent getPieceComp(int row, int col) {
+		return pieces[row][col];
+	}
+
+	/*
+	 * Removes a PieceComponent from the BoardComponent at 
+	 * the given row and column.
+	 * 
+	 * Parameters:
+	 * 		int row = the row number
+	 * 		int col = the column number
+	 * 
+	 * Returns:
+	 * 		PieceComponent; the PieceComponent that gets removed
+	 */
+	public PieceComponent removePieceComp(int row, int col) {
+		puzzle.removePiece(row, col);
+		PieceComponent tempPiece = pieces[row][col];
+		pieces[row][col] = null;
+		return tempPiece;
+	}
+
+	/*
+	 * Resets the Puzzle object, and takes all the PieceComponents 
+	 * from the BoardComponent, and simply adds them to the HolderPanel.
+	 */
+	public void reset() {
+		puzzle.reset();
+		updateFromPuzzle();
+	}
+
+	/*
+	 * Puts the board into a new state, given as the Placements of the 
+	 * Pieces that should be on it. Only the spots whose Piece or 
+	 * orientation is different get changed, and the board is 
+	 * repainted once at the end.
+	 * 
+	 * Parameters:
+	 * 		List<Placement> placements = the Placements of every Piece 
+	 * 			that should be on the board
+	 */
+	public void applyPlacements(List<Placement> placements) {
+		Placement[][] target = new Placement[pieces.length][pieces[0].length];
+		for (Placement placement : placements) {
+			target[placement.getRow()][placement.getCol()] = placement;
+		}
+		// taking off the Pieces that don't belong, before any Piece is moved to its new spot
+		for (int row = 0; row < pieces.length; row++) {
+			for (int col = 0; col < pieces[0].length; col++) {
+				Piece current = puzzle.getPiece(row, col);
+				Placement wanted = target[row][col];
+				if (current != null && (wanted == null || wanted.getPiece() != current 
+						|| wanted.getOrientation() != current.getOrientation())) {
+					puzzle.removePiece(row, col);
+				}
+			}
+		}
+		for (Placement placement : placements) {
+			if (puzzle.getPiece(placement.getRow(), placement.getCol()) == null) {
+				placement.getPiece().setOrientation(placement.getOrientation());
+				puzzle.setPiece(placement.getPiece(), placement.getRow(), placement.getCol());
+			}
+		}
+		updateFromPuzzle();
+	}
+
+	/*
+	 * Gets the Puzzle behind this BoardComponent.
+	 * 
+	 * Returns:
+	 * 		Puzzle; the Puzzle the pieces are placed on
+	 */
+	public Puzzle getPuzzle() {
+		return puzzle;
+	}
+
+	/*
+	 * Puts the board into a state given as one number per spot, row 
+	 * by row: the Piece's id times 4 plus its orientation, or -1 for 
+	 * an empty spot (this is how SolveAnimator sends boards).
+	 * 
+	 * A state that doesn't fit this board (the wrong length, an id 
+	 * with no PieceComponent, or a Piece used twice) is rejected 
+	 * before anything on the board changes.
+	 * 
+	 * Parameters:
+	 * 		int[] state = the state of every spot on the board
+	 * 
+	 * Throws:
+	 * 		IllegalArgumentException if the state isn't a state of this board
+	 */
+	public void showState(int[] state) {
+		int cols = pieces[0].length;
+		if (state.length != pieces.length * cols)
+			throw new IllegalArgumentException("the state has " + state.length + " spots but the board has " + pieces.length * cols);
+		boolean[] used = new boolean[pieceCompsById.length];
+		for (int i = 0; i < state.length; i++) {
+			if (state[i] < 0) continue;
+			int id = state[i] / 4;
+			if (id >= pieceCompsById.length || pieceCompsById[id] == null)
+				throw new IllegalArgumentException("no piece has the id " + id);
+			if (used[id])
+				throw new IllegalArgumentException("the piece " + id + " is used twice");
+			used[id] = true;
+		}
+		List<Placement> placements = new ArrayList<Placement>();
+		for (int i = 0; i < state.length; i++) {
+			if (state[i] >= 0) {
+				Piece piece = pieceCompsById[state[i] / 4].getPiece();
+				placements.add(new Placement(piece, state[i] % 4, i / cols, i % cols));
+			}
+		}
+		applyPlacements(placements);
+	}
+
+	/*
+	 * Makes the PieceComponents match the Pieces on the Puzzle. Each 
+	 * PieceComponent is found from its Piece's id, only the spots that
+	 * changed are touched, PieceComponents that are no longer on the 
+	 * board go back to the HolderPanel, and the board repaints once.
+	 */
+	public void updateFromPuzzle() {
+		boolean[] onBoard = new boolean[pieceCompsById.length];
+		List<PieceComponent> takenOff = new ArrayList<PieceComponent>();
+		boolean changed = false;
+		for (int row = 0; row < pieces.length; row++) {
+			for (int col = 0; col < pieces[0].length; col++) {
+				Piece piece = puzzle.getPiece(row, col);
+				PieceComponent current = pieces[row][col];
+				PieceComponent wanted = (piece == null) ? null : pieceCompsById[piece.getId()];
+				if (wanted != null) {
+					onBoard[piece.getId()] = true;
+				}
+				if (current != wanted) {
+					if (current != null) {
+						takenOff.add(current);
+					}
+					if (wanted != null) {
+						holderPanel.removeFromPanel(wanted);
+					}
+					pieces[row][col] = wanted;
+					changed = true;
+				}
+				if (wanted != null && wanted.getOrientation() != piece.getOrientation()) {
+					wanted.setGraphicsOrientation(piece.getOrientation());
+					changed = true;
+				}
+			}
+		}
+		for (PieceComponent pieceComp : takenOff) {
+			if (!onBoard[pieceComp.getPiece().getId()]) {
+				pieceComp.scaleImage(HolderPanel.CELL_SIZE);
+				holderPanel.addToPanel(pieceComp);
+			}
+		}
+		if (changed) {
+			repaint();
+		}
+	}
+
+	/*
+	 * Gets every unused Piece, and every orientation of it, 
+	 * that fits at an empty row and column.
+	 * 
+	 * Parameters:
+	 * 		int row = the row number
+	 * 		int col = the column number
+	 * 
+	 * Returns:
+	 * 		List<Placement>; the ways to fit a Piece there
+	 */
+	public List<Placement> getFits(int row, int col) {
+		return puzzle.getFits(row, col);
+	}
+
+	/*
+	 * Checks if the Puzzle has been solved.
+	 * 
+	 * Returns:
+	 * 		boolean; true if it is solved, false if it isn't solved yet
+	 */
+	public boolean isSolved() {
+		return puzzle.isSolved();
+	}
+	
+	/*
+	 * Solves the puzzle, putting all the correct PieceComponents onto
+	 * the BoardComponent. If there is a SolutionCache, the solution 
+	 * is taken from it when it has been found before.
+	 */
+	public void solve() {
+		if (solutionCache != null) {
+			solutionCache.solve(puzzle);
+		}
+		else {
+			puzzle.solve();
+		}
+		updateFromPuzzle();
+	}
+
+	/*
+	 * Sets the SolutionCache that solve() uses, or null for none.
+	 * 
+	 * Parameters:
+	 * 		SolutionCache solutionCache = the cache of solutions
+	 */
+	public void setSolutionCache(SolutionCache solutionCache) {
+		this.solutionCache = solutionCache;
+	}
+
+	
+	/*
+	 * Tests the solve method.
+	 */
+	public static void main(String[] args) {
+//		
+//		ArrayList<PieceComponent> pieces = new ArrayList<PieceComponent>();
+//
+//		pieces.add(new PieceComponent("resources\\puzzle pieces\\piece_1.png", new Piece(Side.CLUBOUT, Side.HEARTOUT, Side.DIAMONDIN, Side.CLUBIN)));
+//		pieces.add(new PieceComponent("resources\\puzzle pieces\\piece_2.png", new Piece(Side.SPADEOUT, Side.DIAMONDOUT, Side.SPADEIN, Side.HEARTIN)));
+//		pieces.add(new PieceComponent("resources\\puzzle pieces\\piece_3.png", new Piece(Side.HEARTOUT, Side.SPADEOUT, Side.HEARTIN, Side.CLUBIN)));
+//		pieces.add(new PieceComponent("resources\\puzzle pieces\\piece_4.png", new Piece(Side.HEARTOUT, Side.DIAMONDOUT, Side.CLUBIN, Side.CLUBIN)));
+//		pieces.add(new PieceComponent("resources\\puzzle pieces\\piece_5.png", new Piece(Side.SPADEOUT, Side.SPADEOUT, Side.HEARTIN, Side.CLUBIN)));
+//		pieces.add(new PieceComponent("resources\\puzzle pieces\\piece_6.png", new Piece(Side.HEARTOUT, Side.DIAMONDOUT, Side.DIAMONDIN, Side.HEARTIN)));
+//		pieces.add(new PieceComponent("resources\\puzzle pieces\\piece_7.png", new Piece(Side.SPADEOUT, Side.DIAMONDOUT, Side.HEARTIN, Side.DIAMONDIN)));
+//		pieces.add(new PieceComponent("resources\\puzzle pieces\\piece_8.png", new Piece(Side.CLUBOUT, Side.HEARTOUT, Side.SPADEIN, Side.HEARTIN)));
+//		pieces.add(new PieceComponent("resources\\puzzle pieces\\piece_9.png", new Piece(Side.DIAMONDOUT, Side.CLUBOUT, Side.CLUBIN, Side.DIAMONDIN)));
+//
+//		
+//		Piece piece = new Piece(Side.CLUBOUT, Side.HEARTOUT, Side.DIAMONDIN, Side.CLUBIN);
+//		System.out.println(areEqual(piece,pieces.get(1)));
+//		ArrayList<Piece> x = new ArrayList<Piece>();
+//		x.add(new Piece(Side.CLUB_OUT, Side.HEART_OUT, Side.DIAMOND_IN, Side.CLUB_IN));
+//		x.add(new Piece(Side.SPADE_OUT, Side.DIAMOND_OUT, Side.SPADE_IN, Side.HEART_IN));
+//		x.add(new Piece(Side.HEART_OUT, Side.SPADE_OUT, Side.SPADE_IN, Side.CLUB_IN));
+//		x.add(new Piece(Side.HEART_OUT, Side.DIAMOND_OUT, Side.CLUB_IN, Side.CLUB_IN));
+//		x.add(new Piece(Side.SPADE_OUT, Side.SPADE_OUT, Side.HEART_IN, Side.CLUB_IN));
+//		x.add(new Piece(Side.HEART_OUT, Side.DIAMOND_OUT, Side.DIAMOND_IN, Side.HEART_IN));
+//		x.add(new Piece(Side.SPADE_OUT, Side.DIAMOND_OUT, Side.HEART_IN, Side.DIAMOND_IN));
+//		x.add(new Piece(Side.CLUB_OUT, Side.HEART_OUT, Side.SPADE_IN, Side.HEART_IN));
+//		x.add(new Piece(Side.DIAMOND_OUT, Side.CLUB_OUT, Side.CLUB_IN, Side.DIAMOND_IN));
+//		Puzzle p = new Puzzle(3, 3, x);
+//		for(int row =0; row< p.getRows();row++){
+//			for(int col = 0; col < p.getCols(); col++){
+//				System.out.println(p.getPiece(row, col));
+//			}
+//		}
+//		p.solve();
+//		for(int row =0; row< p.getRows();row++){
+//			for(int col = 0; col < p.getCols(); col++){
+//				System.out.println(p.getPiece(row, col));
+//			}
+//		}
+//		System.out.println(p);
+	}
+
+
+
+
+
+
+
+}
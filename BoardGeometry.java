@@ -0,0 +1,291 @@
+import java.awt.Point;
+import java.awt.Rectangle;
+
+/**
+ * BoardGeometry.java
+ *
+ * A BoardGeometry converts between the cells of a board (rows
+ * and columns) and pixels on the BoardComponent, for a board of
+ * any size. The grid starts at an inset from the top left corner
+ * of the BoardComponent, and can be zoomed and panned inside of
+ * a view.
+ *
+ * Every conversion is plain arithmetic, so it takes the same
+ * time no matter how big the board is. The methods that give
+ * back a Point fill in one that is passed in, instead of making
+ * a new one, so they can be called on every mouse event.
+ */
+public class BoardGeometry {
+
+	// a piece's image is bigger than its cell, since its tabs stick out into the next cells
+	private static final double IMAGE_RATIO = 252.0 / 150;
+	private static final double MAX_ZOOM = 2.0;
+
+	private int rows;
+	private int cols;
+	private int baseCellSize;
+	private int inset;
+	private int viewWidth;
+	private int viewHeight;
+
+	private double zoom = 1.0;
+	private double panX;
+	private double panY;
+
+	/*
+	 * Constructs a BoardGeometry for a board.
+	 *
+	 * Parameters:
+	 * 		int rows = the number of rows on the board
+	 * 		int cols = the number of columns on the board
+	 * 		int cellSize = the size of a cell (in pixels) when the board is not zoomed
+	 * 		int inset = the space (in pixels) between the edge of the view and the grid
+	 */
+	public BoardGeometry(int rows, int cols, int cellSize, int inset) {
+		this.rows = rows;
+		this.cols = cols;
+		this.baseCellSize = cellSize;
+		this.inset = inset;
+	}
+
+	/*
+	 * Sets the size of the view the board is shown in, not
+	 * counting the inset.
+	 *
+	 * Parameters:
+	 * 		int width = the width of the view
+	 * 		int height = the height of the view
+	 */
+	public void setViewSize(int width, int height) {
+		this.viewWidth = Math.max(0, width);
+		this.viewHeight = Math.max(0, height);
+		zoom = Math.max(getMinZoom(), zoom);
+		clampPan();
+	}
+
+	/*
+	 * Gets the size of a cell at the current zoom.
+	 *
+	 * Returns:
+	 * 		double; the width (and height) of a cell in pixels
+	 */
+	public double getCellSize() {
+		return baseCellSize * zoom;
+	}
+
+	/*
+	 * Gets the size a piece's image is drawn at at the current zoom.
+	 *
+	 * Returns:
+	 * 		int; the width (and height) of a piece's image in pixels
+	 */
+	public int getImageSize() {
+		return Math.max(1, (int)Math.round(getCellSize() * IMAGE_RATIO));
+	}
+
+	/*
+	 * Gets how far a piece's image sticks out of its cell on each side.
+	 *
+	 * Returns:
+	 * 		int; the overhang in pixels
+	 */
+	public int getOverhang() {
+		return (getImageSize() - (int)getCellSize()) / 2;
+	}
+
+	/*
+	 * Gets the x coordinate of the left side of a column.
+	 *
+	 * Parameters:
+	 * 		int col = the column number
+	 *
+	 * Returns:
+	 * 		int; the x coordinate
+	 */
+	public int cellX(int col) {
+		return inset + (int)Math.floor(col * getCellSize() - panX);
+	}
+
+	/*
+	 * Gets the y coordinate of the top side of a row.
+	 *
+	 * Parameters:
+	 * 		int row = the row number
+	 *
+	 * Returns:
+	 * 		int; the y coordinate
+	 */
+	public int cellY(int row) {
+		return inset + (int)Math.floor(row * getCellSize() - panY);
+	}
+
+	/*
+	 * Gets the column under an x coordinate. The column may
+	 * be outside of the board.
+	 *
+	 * Parameters:
+	 * 		int x = the x coordinate
+	 *
+	 * Returns:
+	 * 		int; the column number
+	 */
+	public int colAt(int x) {
+		return (int)Math.floor((x - inset + panX) / getCellSize());
+	}
+
+	/*
+	 * Gets the row under a y coordinate. The row may
+	 * be outside of the board.
+	 *
+	 * Parameters:
+	 * 		int y = the y coordinate
+	 *
+	 * Returns:
+	 * 		int; the row number
+	 */
+	public int rowAt(int y) {
+		return (int)Math.floor((y - inset + panY) / getCellSize());
+	}
+
+	/*
+	 * Converts an xy point into a row (x) and column (y). Points
+	 * outside of the view or the board give (-1,-1).
+	 *
+	 * Parameters:
+	 * 		int x = the x coordinate
+	 * 		int y = the y coordinate
+	 * 		Point rowCol = the Point to put the row (x) and column (y) in
+	 *
+	 * Returns:
+	 * 		boolean; true if the point is over a cell, false if it isn't
+	 */
+	public boolean toRowCol(int x, int y, Point rowCol) {
+		int row = rowAt(y);
+		int col = colAt(x);
+		if (x < inset || x >= inset + viewWidth || y < inset || y >= inset + viewHeight
+				|| row < 0 || row >= rows || col < 0 || col >= cols) {
+			rowCol.setLocation(-1, -1);
+			return false;
+		}
+		rowCol.setLocation(row, col);
+		return true;
+	}
+
+	/*
+	 * Converts a row and column into the xy coordinates of the
+	 * top left corner of the piece image drawn there.
+	 *
+	 * Parameters:
+	 * 		int row = the row number
+	 * 		int col = the column number
+	 * 		Point xY = the Point to put the coordinates in
+	 */
+	public void toXY(int row, int col, Point xY) {
+		xY.setLocation(cellX(col) - getOverhang(), cellY(row) - getOverhang());
+	}
+
+	/*
+	 * Gets the area covered by a cell's piece image, including the
+	 * parts of the neighboring cells its tabs stick into.
+	 *
+	 * Parameters:
+	 * 		int row = the row number
+	 * 		int col = the column number
+	 * 		Rectangle bounds = the Rectangle to put the area in
+	 */
+	public void imageBounds(int row, int col, Rectangle bounds) {
+		int size = getImageSize();
+		bounds.setBounds(cellX(col) - getOverhang(), cellY(row) - getOverhang(), size, size);
+	}
+
+	/*
+	 * Zooms in or out, keeping the spot under the given point
+	 * in the same place. The zoom is kept between showing the
+	 * whole board and MAX_ZOOM.
+	 *
+	 * Parameters:
+	 * 		int x = the x coordinate to zoom around
+	 * 		int y = the y coordinate to zoom around
+	 * 		double factor = how much to multiply the zoom by
+	 */
+	public void zoomAt(int x, int y, double factor) {
+		double boardX = (x - inset + panX) / getCellSize();
+		double boardY = (y - inset + panY) / getCellSize();
+		zoom = Math.max(getMinZoom(), Math.min(MAX_ZOOM, zoom * factor));
+		panX = boardX * getCellSize() - (x - inset);
+		panY = boardY * getCellSize() - (y - inset);
+		clampPan();
+	}
+
+	/*
+	 * Moves the view by some number of pixels.
+	 *
+	 * Parameters:
+	 * 		int dx = the pixels to move the board right
+	 * 		int dy = the pixels to move the board down
+	 */
+	public void panBy(int dx, int dy) {
+		panX -= dx;
+		panY -= dy;
+		clampPan();
+	}
+
+	/*
+	 * Gets the smallest zoom, where the whole board fits in the view.
+	 *
+	 * Returns:
+	 * 		double; the smallest zoom
+	 */
+	public double getMinZoom() {
+		double fitWidth = (double)viewWidth / (cols * baseCellSize);
+		double fitHeight = (double)viewHeight / (rows * baseCellSize);
+		return Math.min(1.0, Math.min(fitWidth, fitHeight));
+	}
+
+	/*
+	 * Keeps the view on the board. If the board is smaller than the
+	 * view, it gets centered.
+	 */
+	private void clampPan() {
+		double extraX = cols * getCellSize() - viewWidth;
+		double extraY = rows * getCellSize() - viewHeight;
+		panX = (extraX < 0) ? extraX / 2 : Math.max(0, Math.min(extraX, panX));
+		panY = (extraY < 0) ? extraY / 2 : Math.max(0, Math.min(extraY, panY));
+	}
+
+	/*
+	 * Gets the number of rows.
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/*
+	 * Gets the number of columns.
+	 */
+	public int getCols() {
+		return cols;
+	}
+
+	/*
+	 * Gets the space between the edge of the view and the grid.
+	 */
+	public int getInset() {
+		return inset;
+	}
+
+	/*
+	 * Gets the width of the view, not counting the inset.
+	 */
+	public int getViewWidth() {
+		return viewWidth;
+	}
+
+	/*
+	 * Gets the height of the view, not counting the inset.
+	 */
+	public int getViewHeight() {
+		return viewHeight;
+	}
+
+}
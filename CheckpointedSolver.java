@@ -0,0 +1,403 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The purpose of this class is to let a long search stop, for any reason, and carry on later from where it was
+ * The search goes spot by spot, row by row, trying the candidates for each spot in order, with its own stack instead of recursion,
+ * so its whole state is the path of candidates placed so far, and the last candidate tried at the spot after them (its cursor).
+ * Every so often that state is written to a checkpoint file, with the number of pieces placed, solutions found and time spent,
+ * and a search started with the same file and puzzle picks up exactly where the checkpoint left off
+ * A checkpoint is written to a temporary file first, then moved over the old one in one step, so there is always a whole checkpoint
+ * The clock is only looked at every few thousand pieces, so checking whether it is time for a checkpoint costs almost nothing
+ * The search can stop at the first solution, or count every solution, which is what runs for days
+ * Usage: java CheckpointedSolver [-interval ms] [-count] checkpoint-file puzzle-file
+ */
+public class CheckpointedSolver implements Solver {
+
+	//how often a checkpoint is written, by default
+	public static final long DEFAULT_INTERVAL_MILLIS = 60000;
+
+	//the number of pieces placed between looks at the clock, minus 1
+	private static final long CLOCK_MASK = (1 << 12) - 1;
+
+	private File checkpoint;
+	private long intervalMillis;
+	private boolean countAll;
+
+	private EdgeTable table;
+	private int spots;
+	private int words;
+	//whether each piece is fixed somewhere on the board, so it can't go anywhere else
+	private boolean[] fixedPieces;
+	//the candidate at every spot, the pieces used, and the candidates left to try at every spot
+	private int[] value;
+	private long[] used;
+	private long[][] remaining;
+
+	//what the search has done, over every run
+	private long nodes;
+	private long solutions;
+	private long millis;
+	private int[] solution;
+	private boolean finished;
+	private int checkpoints;
+
+	//Constructs a CheckpointedSolver that writes a checkpoint file every intervalMillis,
+	//stopping at the first solution, or counting them all if countAll is true
+	public CheckpointedSolver(File checkpoint, long intervalMillis, boolean countAll) {
+		this.checkpoint = checkpoint;
+		this.intervalMillis = intervalMillis;
+		this.countAll = countAll;
+	}
+
+	//returns the number of pieces placed, over every run of the search
+	public long getNodes() {
+		return nodes;
+	}
+
+	//returns the number of solutions found, over every run of the search
+	public long getSolutions() {
+		return solutions;
+	}
+
+	//returns the number of milliseconds spent searching, over every run of the search
+	public long getMillis() {
+		return millis;
+	}
+
+	//returns true if the search is over: it searched everything, or found a solution and wasn't counting them all
+	public boolean isFinished() {
+		return finished;
+	}
+
+	//returns the number of checkpoints written during the last solve
+	public int getCheckpoints() {
+		return checkpoints;
+	}
+
+	//Solves the puzzle, starting from the checkpoint if there is one for this puzzle, and writing checkpoints as it goes
+	//If it is cancelled, a checkpoint is written before it returns. When it is over, the last checkpoint says so,
+	//and solving again just gives the same answer
+	//Returns the first solution, or null if there is none or the search was cancelled
+	public int[] solve(EdgeTable table, BooleanSupplier cancelled) {
+		this.table = table;
+		this.spots = table.getSpots();
+		this.words = table.getWords();
+		fixedPieces = new boolean[table.getPieceCount()];
+		for (int spot = 0; spot < spots; spot++) {
+			if (table.getFixed(spot) >= 0)
+				fixedPieces[table.getFixed(spot) / 4] = true;
+		}
+		value = new int[spots];
+		used = new long[(table.getPieceCount() + 63) / 64];
+		remaining = new long[spots][words];
+		checkpoints = 0;
+		try {
+			int spot = resume();
+			if (!finished)
+				search(spot, cancelled);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return finished ? solution : null;
+	}
+
+	//Searches from the state the stack is in, at a spot, until the search is over or cancelled
+	private void search(int spot, BooleanSupplier cancelled) throws IOException {
+		long started = System.currentTimeMillis();
+		long lastCheckpoint = started;
+		while (spot >= 0) {
+			int candidate = take(spot);
+			if (candidate < 0) {
+				spot--;
+				if (spot >= 0)
+					unplace(spot);
+				continue;
+			}
+			value[spot] = candidate;
+			used[candidate / 4 >>> 6] |= 1L << (candidate / 4);
+			nodes++;
+			if (spot + 1 == spots) {
+				solutions++;
+				if (solution == null)
+					solution = value.clone();
+				if (!countAll) break;
+				unplace(spot);
+			} else {
+				spot++;
+				start(spot);
+			}
+			if ((nodes & CLOCK_MASK) == 0) {
+				boolean stop = cancelled.getAsBoolean();
+				long now = System.currentTimeMillis();
+				if (stop || now - lastCheckpoint >= intervalMillis) {
+					millis += now - started;
+					started = now;
+					lastCheckpoint = now;
+					write(spot);
+				}
+				if (stop) return;
+			}
+		}
+		finished = true;
+		millis += System.currentTimeMillis() - started;
+		write(-1);
+	}
+
+	//Reads the checkpoint, if there is one for this puzzle, and sets the stack up the way it was
+	//Returns the spot the search was at, or 0 if there was no checkpoint
+	private int resume() throws IOException {
+		nodes = 0;
+		solutions = 0;
+		millis = 0;
+		solution = null;
+		finished = false;
+		Arrays.fill(used, 0);
+		if (!checkpoint.exists()) {
+			start(0);
+			return 0;
+		}
+		int[] path, cursor;
+		try (BufferedReader in = Files.newBufferedReader(checkpoint.toPath(), StandardCharsets.UTF_8)) {
+			if (!"checkpoint 1".equals(in.readLine()))
+				throw new IOException(checkpoint + " is not a checkpoint");
+			if (!("puzzle " + getSignature()).equals(in.readLine()))
+				throw new IOException(checkpoint + " is a checkpoint of a different puzzle");
+			finished = numbers(in.readLine(), "finished")[0] != 0;
+			nodes = numbers(in.readLine(), "nodes")[0];
+			solutions = numbers(in.readLine(), "solutions")[0];
+			millis = numbers(in.readLine(), "millis")[0];
+			path = toInts(numbers(in.readLine(), "path"));
+			cursor = toInts(numbers(in.readLine(), "cursor"));
+			String line = in.readLine();
+			if (line != null)
+				solution = toInts(numbers(line, "solution"));
+		}
+		if (finished) return -1;
+		//each spot on the path only has the candidates after the one placed there left to try,
+		//and the spot after the path only has the ones after its cursor
+		for (int spot = 0; spot < path.length; spot++) {
+			start(spot);
+			skip(spot, path[spot]);
+			value[spot] = path[spot];
+			used[path[spot] / 4 >>> 6] |= 1L << (path[spot] / 4);
+		}
+		if (path.length < spots) {
+			start(path.length);
+			skip(path.length, cursor[0]);
+		}
+		return path.length;
+	}
+
+	//Writes a checkpoint of the search at a spot, or of a search that is over if spot is -1
+	private void write(int spot) throws IOException {
+		File temp = File.createTempFile("checkpoint", ".tmp", checkpoint.getAbsoluteFile().getParentFile());
+		try {
+			try (Writer out = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+				out.write("checkpoint 1\npuzzle " + getSignature() + "\nfinished " + (finished ? 1 : 0) + "\nnodes " + nodes
+						+ "\nsolutions " + solutions + "\nmillis " + millis + "\npath");
+				int length = Math.max(0, spot);
+				for (int i = 0; i < length; i++) {
+					out.write(" " + value[i]);
+				}
+				//the cursor is the last candidate tried at the spot: the one just before the first one left
+				out.write("\ncursor " + ((spot < 0 || spot == spots) ? -1 : cursor(spot)) + "\n");
+				if (solution != null) {
+					out.write("solution");
+					for (int candidate : solution) {
+						out.write(" " + candidate);
+					}
+					out.write("\n");
+				}
+			}
+			Files.move(temp.toPath(), checkpoint.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			checkpoints++;
+		} finally {
+			temp.delete();
+		}
+	}
+
+	//returns the cursor of a spot: one less than the first candidate left to try, since they are tried in order,
+	//or the last candidate if there are none left
+	private int cursor(int spot) {
+		for (int w = 0; w < words; w++) {
+			if (remaining[spot][w] != 0)
+				return w * 64 + Long.numberOfTrailingZeros(remaining[spot][w]) - 1;
+		}
+		return table.getPieceCount() * 4 - 1;
+	}
+
+	//takes the candidates up to and including one out of the ones left to try at a spot
+	private void skip(int spot, int candidate) {
+		for (int c = 0; c <= candidate; c++) {
+			remaining[spot][c >>> 6] &= ~(1L << c);
+		}
+	}
+
+	//returns a number that is the same for the same puzzle: an FNV-1a hash of its size, sides and fixed spots, in hex
+	private String getSignature() {
+		long hash = 0xcbf29ce484222325L;
+		int[] numbers = new int[] { table.getRows(), table.getCols(), table.getPieceCount() };
+		for (int number : numbers) {
+			hash = (hash ^ number) * 0x100000001b3L;
+		}
+		for (int candidate = 0; candidate < table.getPieceCount() * 4; candidate++) {
+			for (int d = 0; d < 4; d++) {
+				hash = (hash ^ (table.getSide(candidate, d) + 4)) * 0x100000001b3L;
+			}
+		}
+		for (int spot = 0; spot < spots; spot++) {
+			hash = (hash ^ (table.getFixed(spot) + 1)) * 0x100000001b3L;
+		}
+		return String.format("%016x", hash);
+	}
+
+	//Works out the candidates for a spot: the one fixed there, or all of them, that fit the pieces above and to the left
+	private void start(int spot) {
+		fill(spot, remaining[spot]);
+	}
+
+	//fills a bitset with the candidates for a spot
+	private void fill(int spot, long[] candidates) {
+		int fixed = table.getFixed(spot);
+		Arrays.fill(candidates, 0);
+		if (fixed >= 0) {
+			candidates[fixed >>> 6] = 1L << fixed;
+		} else {
+			Arrays.fill(candidates, -1L);
+			int count = table.getPieceCount() * 4;
+			if ((count & 63) != 0)
+				candidates[words - 1] = (1L << count) - 1;
+		}
+		int cols = table.getCols();
+		if (spot % cols > 0)
+			and(candidates, table.getFits(value[spot - 1], 1));
+		if (spot >= cols)
+			and(candidates, table.getFits(value[spot - cols], 2));
+	}
+
+	//Takes the next candidate for a spot, skipping ones whose piece is used, or fixed somewhere else
+	//Returns -1 if there are none left
+	private int take(int spot) {
+		long[] candidates = remaining[spot];
+		for (int w = 0; w < words; w++) {
+			while (candidates[w] != 0) {
+				int candidate = w * 64 + Long.numberOfTrailingZeros(candidates[w]);
+				candidates[w] &= candidates[w] - 1;
+				int piece = candidate / 4;
+				if ((used[piece >>> 6] & (1L << piece)) == 0 && (table.getFixed(spot) >= 0 || !fixedPieces[piece]))
+					return candidate;
+			}
+		}
+		return -1;
+	}
+
+	//takes the candidate at a spot back off
+	private void unplace(int spot) {
+		int piece = value[spot] / 4;
+		used[piece >>> 6] &= ~(1L << piece);
+	}
+
+	//ANDs a bitset into candidates
+	private void and(long[] candidates, long[] mask) {
+		for (int w = 0; w < words; w++) {
+			candidates[w] &= mask[w];
+		}
+	}
+
+	//Reads the numbers after a word on a line of the checkpoint
+	private long[] numbers(String line, String word) throws IOException {
+		if (line == null || !(line.equals(word) || line.startsWith(word + " ")))
+			throw new IOException(checkpoint + ": expected " + word);
+		String rest = line.substring(word.length()).trim();
+		if (rest.isEmpty()) return new long[0];
+		String[] tokens = rest.split(" +");
+		long[] numbers = new long[tokens.length];
+		try {
+			for (int i = 0; i < tokens.length; i++) {
+				numbers[i] = Long.parseLong(tokens[i]);
+			}
+		} catch (NumberFormatException e) {
+			throw new IOException(checkpoint + ": " + e.getMessage());
+		}
+		return numbers;
+	}
+
+	//returns longs as ints
+	private static int[] toInts(long[] numbers) {
+		int[] ints = new int[numbers.length];
+		for (int i = 0; i < numbers.length; i++) {
+			ints[i] = (int) numbers[i];
+		}
+		return ints;
+	}
+
+	public static void main(String[] args) throws Exception {
+		long intervalMillis = DEFAULT_INTERVAL_MILLIS;
+		boolean countAll = false;
+		int i = 0;
+		while (i < args.length && args[i].startsWith("-")) {
+			if (args[i].equals("-count")) {
+				countAll = true;
+				i++;
+			} else if (args[i].equals("-interval") && i + 1 < args.length) {
+				intervalMillis = Long.parseLong(args[i + 1]);
+				i += 2;
+			} else {
+				break;
+			}
+		}
+		if (i != args.length - 2) {
+			System.err.println("Usage: java CheckpointedSolver [-interval ms] [-count] checkpoint-file puzzle-file");
+			System.exit(2);
+		}
+		Puzzle puzzle;
+		try (Reader in = Files.newBufferedReader(new File(args[i + 1]).toPath(), StandardCharsets.UTF_8)) {
+			puzzle = new PuzzleText(in).next();
+		}
+		if (puzzle == null) {
+			System.err.println(args[i + 1] + " has no puzzle in it");
+			System.exit(1);
+		}
+		//stopping the program, with Ctrl-C or a kill, cancels the search, which writes a checkpoint
+		final Thread main = Thread.currentThread();
+		final AtomicBoolean stopping = new AtomicBoolean();
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				stopping.set(true);
+				try {
+					main.join();
+				} catch (InterruptedException e) {
+					//exits anyway
+				}
+			}
+		});
+		CheckpointedSolver solver = new CheckpointedSolver(new File(args[i]), intervalMillis, countAll);
+		EdgeTable table = new EdgeTable(puzzle);
+		int[] solution = solver.solve(table, new BooleanSupplier() {
+			public boolean getAsBoolean() {
+				return stopping.get();
+			}
+		});
+		Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+		out.write(String.format("# %s, %d solutions, %d nodes, %.3f seconds%n", solver.isFinished() ? "finished" : "stopped",
+				solver.getSolutions(), solver.getNodes(), solver.getMillis() / 1e3));
+		if (solution != null) {
+			table.apply(puzzle, solution);
+			PuzzleText.write(puzzle, out);
+		}
+		out.flush();
+	}
+}
@@ -0,0 +1,203 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The purpose of this class is to give a puzzle a difficulty score, from 0 (easiest) to 100 (hardest)
+ * The score comes from solving the puzzle the way a person would, spot by spot, row by row, starting at the top left,
+ * and recording how the search went in a SearchStats:
+ * 		- the branching factor: how many pieces fit, on average, at each spot
+ * 		- the backtracks: how many pieces had to be taken back off
+ * 		- the forced ratio: how many spots could only be filled one way, which makes a puzzle easier
+ * 		- the near solutions: how many dead ends had only the last row left to fill, which are the most frustrating
+ * A search that takes more than a set number of moves gives up and gets a score of 100
+ * The pieces don't have to be turned the right way, and nothing is placed at the start, so every puzzle is rated the same way
+ * Usage: java DifficultyRater [-threads n] [-max moves] file ...
+ */
+public class DifficultyRater {
+
+	//puts placements in order of their piece's id, then their orientation
+	private static final Comparator<Placement> BY_PIECE = new Comparator<Placement>() {
+		public int compare(Placement a, Placement b) {
+			int byId = Integer.compare(a.getPiece().getId(), b.getPiece().getId());
+			return (byId != 0) ? byId : Integer.compare(a.getOrientation(), b.getOrientation());
+		}
+	};
+
+	//the most pieces a search places before it gives up
+	private long maxNodes;
+
+	//the puzzle being rated, and what has happened so far
+	private Puzzle puzzle;
+	private SearchStats stats;
+
+	//Constructs a DifficultyRater whose searches give up after placing maxNodes pieces
+	public DifficultyRater(long maxNodes) {
+		this.maxNodes = maxNodes;
+	}
+
+	//Solves a copy of the puzzle, recording how the search went. The puzzle itself is not changed
+	public synchronized SearchStats search(Puzzle puzzle) {
+		this.puzzle = puzzle.copy();
+		this.puzzle.reset();
+		this.stats = new SearchStats();
+		boolean solved = search();
+		//a search that solves the puzzle on its last allowed placement didn't give up, but one that was interrupted did
+		stats.finished(solved, !solved && (stats.getNodes() >= maxNodes || Thread.currentThread().isInterrupted()));
+		this.puzzle = null;
+		return stats;
+	}
+
+	//returns the difficulty of the puzzle, from 0 to 100
+	public int rate(Puzzle puzzle) {
+		return score(search(puzzle));
+	}
+
+	//returns the difficulty score, from 0 to 100, for how a search went
+	//	every doubling of the backtracks adds 3, up to 60 (at about a million)
+	//	every piece that fits beyond one, on average, adds 10, up to 20
+	//	spots that aren't forced add up to 10
+	//	every doubling of the near solutions adds 2, up to 10
+	public static int score(SearchStats stats) {
+		if (stats.gaveUp()) return 100;
+		double score = Math.min(60, 3 * log2(1 + stats.getBacktracks()))
+				+ Math.min(20, 10 * Math.max(0, stats.getBranchingFactor() - 1))
+				+ 10 * (1 - stats.getForcedRatio())
+				+ Math.min(10, 2 * log2(1 + stats.getNearSolutions()));
+		return (int) Math.round(Math.min(100, score));
+	}
+
+	//fills every spot, row by row, returning true if the board was filled
+	//The fits of every spot on the way, and the next one to try, are kept on a stack, so a big board can't overflow the call stack
+	private boolean search() {
+		int cols = puzzle.getCols();
+		int spots = puzzle.getRows() * cols;
+		Placement[][] fits = new Placement[spots][];
+		int[] next = new int[spots];
+		int index = 0;
+		boolean forward = true;
+		while (true) {
+			int row = index / cols, col = index % cols;
+			if (forward) {
+				if (index == spots) return true;
+				if (stats.getNodes() >= maxNodes || Thread.currentThread().isInterrupted()) return false;
+				//the fits are sorted, since the order they come in can change from run to run, and so would the rating
+				fits[index] = puzzle.getFits(row, col).toArray(new Placement[0]);
+				Arrays.sort(fits[index], BY_PIECE);
+				next[index] = 0;
+				stats.spot(fits[index].length);
+				//a dead end in the last row means only a few pieces were left
+				if (fits[index].length == 0 && row == puzzle.getRows() - 1 && puzzle.getRows() > 1)
+					stats.nearSolution();
+			} else {
+				//the spots after this one couldn't be filled, so the piece here comes back off
+				puzzle.removePiece(row, col);
+				stats.backtracked();
+				if (stats.getNodes() >= maxNodes) return false;
+			}
+			if (next[index] < fits[index].length) {
+				Placement fit = fits[index][next[index]++];
+				Piece piece = fit.getPiece();
+				piece.setOrientation(fit.getOrientation());
+				puzzle.setPiece(piece, row, col);
+				stats.placed();
+				index++;
+				forward = true;
+			} else {
+				fits[index] = null;
+				if (--index < 0) return false;
+				forward = false;
+			}
+		}
+	}
+
+	//returns the base 2 logarithm of a number
+	private static double log2(double value) {
+		return Math.log(value) / Math.log(2);
+	}
+
+	public static void main(String[] args) throws Exception {
+		int threads = Runtime.getRuntime().availableProcessors();
+		long maxNodes = 10000000;
+		int first = 0;
+		while (first < args.length && args[first].startsWith("-")) {
+			if (first + 1 >= args.length) usage();
+			if (args[first].equals("-threads")) threads = Integer.parseInt(args[first + 1]);
+			else if (args[first].equals("-max")) maxNodes = Long.parseLong(args[first + 1]);
+			else usage();
+			first += 2;
+		}
+		if (first >= args.length)
+			usage();
+		final long max = maxNodes;
+		final Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+		//each thread has its own rater, and a full queue makes this thread rate the puzzle itself,
+		//so puzzles are only read as fast as they are rated
+		final ThreadLocal<DifficultyRater> raters = new ThreadLocal<DifficultyRater>() {
+			protected DifficultyRater initialValue() {
+				return new DifficultyRater(max);
+			}
+		};
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(threads * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+		for (int i = first; i < args.length; i++) {
+			final String name = args[i];
+			//a file that can't be read is skipped, with a message
+			try {
+				if (name.endsWith(".puz")) {
+					PuzzleFile file = new PuzzleFile(new File(name).toPath());
+					for (int j = 0; j < file.size(); j++) {
+						rate(pool, raters, out, name, j, file.get(j).toPuzzle());
+					}
+				} else {
+					try (Reader in = Files.newBufferedReader(new File(name).toPath(), StandardCharsets.UTF_8)) {
+						PuzzleText text = new PuzzleText(in);
+						int j = 0;
+						for (Puzzle puzzle = text.next(); puzzle != null; puzzle = text.next()) {
+							rate(pool, raters, out, name, j++, puzzle);
+						}
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				System.err.println(name + ": " + e.getMessage());
+			}
+		}
+		pool.shutdown();
+		pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+		out.flush();
+	}
+
+	//prints how to run the rater and exits
+	private static void usage() {
+		System.err.println("Usage: java DifficultyRater [-threads n] [-max moves] file ...");
+		System.exit(2);
+	}
+
+	//Rates a puzzle on the pool, and writes "name index score stats" when it is done
+	private static void rate(ThreadPoolExecutor pool, final ThreadLocal<DifficultyRater> raters, final Writer out,
+			final String name, final int index, final Puzzle puzzle) {
+		pool.execute(new Runnable() {
+			public void run() {
+				SearchStats stats = raters.get().search(puzzle);
+				String line = name + " " + index + " " + score(stats) + " " + stats + "\n";
+				synchronized (out) {
+					try {
+						out.write(line);
+					} catch (IOException e) {
+						throw new RuntimeException(e);
+					}
+				}
+			}
+		});
+	}
+}
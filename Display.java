@@ -2,15 +2,17 @@ import java.awt.EventQueue;
 import java.awt.Font;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
-import java.awt.GridLayout;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JLayeredPane;
@@ -18,6 +20,7 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
 
+import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.JTabbedPane;
 import javax.swing.JPanel;
@@ -42,6 +45,10 @@ public class Display {
 	private static JPanel puzzlePanel;
 	private static JPanel glassPane;
 	private static TimerPanel timerPanel;
+	private static SolveAnimator animator;
+	private static SolvabilityChecker checker;
+	private static JLabel solvableLabel;
+	private static HintEngine hintEngine = new HintEngine();
 	protected static boolean isTimerVisible;
 	private List<Piece> pieces;
 	protected static List<PieceComponent> pieceComps;
@@ -100,8 +107,9 @@ public class Display {
 
 		holderPanel = new HolderPanel(pieceComps);
 		holderPanel.initialize();
-		tabbedPane.addTab("Puzzle Pieces", null, holderPanel, null);
-		holderPanel.setLayout(new GridLayout(5, 2, 0, 0));
+		JScrollPane holderScrollPane = new JScrollPane(holderPanel);
+		holderScrollPane.getVerticalScrollBar().setUnitIncrement(HolderPanel.CELL_SIZE / 4);
+		tabbedPane.addTab("Puzzle Pieces", null, holderScrollPane, null);
 
 		/*
 		 * Right side - PuzzlePanel and TimerPanel
@@ -109,11 +117,13 @@ public class Display {
 		puzzlePanel = new JPanel();
 		puzzlePanel.setLayout(null);
 
-		Puzzle puzzle = new Puzzle(3,pieces);
-		boardComponent = new BoardComponent(puzzle,holderPanel);
+		final Puzzle puzzle = new Puzzle(3,pieces);
+		boardComponent = new BoardComponent(puzzle,holderPanel,pieceComps);
+		boardComponent.setSolutionCache(new SolutionCache(64, new File("resources", "solutions")));
 		puzzlePanel.add(boardComponent);
-		boardComponent.setSize(450,450);
-		boardComponent.setLocation(150,100);
+		// the 450x450 grid has room around it for the tabs of the outer pieces
+		boardComponent.setSize(450 + 2 * BoardComponent.INSET, 450 + 2 * BoardComponent.INSET);
+		boardComponent.setLocation(150 - BoardComponent.INSET, 100 - BoardComponent.INSET);
 		puzzlePanel.setComponentZOrder(boardComponent, 0);
 
 		timerPanel = new TimerPanel();
@@ -136,9 +146,11 @@ public class Display {
 		resetButton.setLocation(650, 50);
 		resetButton.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
+				stopAnimator();
 				listener.setSolutionDisplayed(false);
 				boardComponent.reset();
 				holderPanel.reset();
+				checker.check(puzzle);
 				
 				timerPanel.stopTimer();
 				timerPanel.updateVisible(true);
@@ -152,6 +164,9 @@ public class Display {
 		solveButton.setLocation(650, 90);
 		solveButton.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
+				stopAnimator();
+				checker.cancel();
+				solvableLabel.setText("");
 				listener.setSolutionDisplayed(true);
 				timerPanel.updateVisible(false);
 				boardComponent.reset();
@@ -161,6 +176,34 @@ public class Display {
 			}
 		});
 		
+		JButton watchButton = new JButton("Watch Solver");
+		puzzlePanel.add(watchButton);
+		watchButton.setSize(150, 30);
+		watchButton.setLocation(650, 290);
+		watchButton.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				stopAnimator();
+				checker.cancel();
+				solvableLabel.setText("");
+				listener.setSolutionDisplayed(true);
+				timerPanel.updateVisible(false);
+				boardComponent.reset();
+				holderPanel.reset();
+				animator = new SolveAnimator(boardComponent, puzzle, 30);
+				animator.start(null);
+			}
+		});
+		
+		JButton hintButton = new JButton("Hint");
+		puzzlePanel.add(hintButton);
+		hintButton.setSize(150, 30);
+		hintButton.setLocation(650, 370);
+		hintButton.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				showHint();
+			}
+		});
+		
 		JButton timerOnOff = new JButton("Timer On/Off");
 		puzzlePanel.add(timerOnOff);
 		timerOnOff.setSize(150, 30);
@@ -187,16 +230,70 @@ public class Display {
 			}
 		});
 		
+		JButton sortButton = new JButton("Sort by Shape");
+		puzzlePanel.add(sortButton);
+		sortButton.setSize(150, 30);
+		sortButton.setLocation(650, 210);
+		sortButton.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent arg0) {
+				holderPanel.sortBySignature();
+			}
+		});
+		
+		JComboBox<Object> filterBox = new JComboBox<Object>();
+		filterBox.addItem("Show All Pieces");
+		for (Side side : Side.values()) {
+			filterBox.addItem(side);
+		}
+		puzzlePanel.add(filterBox);
+		filterBox.setSize(150, 30);
+		filterBox.setLocation(650, 250);
+		filterBox.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent arg0) {
+				Object selected = filterBox.getSelectedItem();
+				if (selected instanceof Side) {
+					holderPanel.setFilter(Arrays.asList((Side)selected));
+				}
+				else {
+					holderPanel.setFilter(null);
+				}
+			}
+		});
+		
+		solvableLabel = new JLabel();
+		puzzlePanel.add(solvableLabel);
+		solvableLabel.setFont(new Font("Serif", Font.BOLD, 16));
+		solvableLabel.setSize(200, 30);
+		solvableLabel.setLocation(650, 330);
+		checker = new SolvabilityChecker(new SolvabilityChecker.Listener() {
+			public void verdict(SolvabilityChecker.Verdict verdict) {
+				if (verdict == SolvabilityChecker.Verdict.SOLVABLE) {
+					solvableLabel.setForeground(Color.decode("#27ae60"));
+					solvableLabel.setText("Still solvable");
+				}
+				else if (verdict == SolvabilityChecker.Verdict.UNSOLVABLE) {
+					solvableLabel.setForeground(Color.decode("#c0392b"));
+					solvableLabel.setText("Can't be solved from here");
+				}
+				else {
+					// the check ran out of time, which is not the same as no answer yet
+					solvableLabel.setForeground(Color.decode("#7f8c8d"));
+					solvableLabel.setText("Too many ways to check");
+				}
+			}
+		}, 20000, 40);
+		
 		splitPane.setRightComponent(puzzlePanel);
 		
 		
 		// Initialize listeners
 		listener = new DragListener(layeredPane,holderPanel,puzzlePanel,boardComponent,timerPanel);
+		listener.setSolvabilityChecker(checker);
 		holderPanel.addMouseListener(listener);
 		holderPanel.addMouseMotionListener(listener);
-		holderPanel.addMouseWheelListener(listener);
 		puzzlePanel.addMouseListener(listener);
 		puzzlePanel.addMouseMotionListener(listener);
+		puzzlePanel.addMouseWheelListener(listener);
 
 		glassPane = new JPanel();
 		frame.setGlassPane(glassPane);
@@ -214,15 +311,15 @@ public class Display {
 	public void initPieces() {
 		pieces = new ArrayList<Piece>();
 
-		pieces.add(new Piece(Side.CLUB_OUT, Side.HEART_OUT, Side.DIAMOND_IN, Side.CLUB_IN));
-		pieces.add(new Piece(Side.SPADE_OUT, Side.DIAMOND_OUT, Side.SPADE_IN, Side.HEART_IN));
-		pieces.add(new Piece(Side.HEART_OUT, Side.SPADE_OUT, Side.SPADE_IN, Side.CLUB_IN));
-		pieces.add(new Piece(Side.HEART_OUT, Side.DIAMOND_OUT, Side.CLUB_IN, Side.CLUB_IN));
-		pieces.add(new Piece(Side.SPADE_OUT, Side.SPADE_OUT, Side.HEART_IN, Side.CLUB_IN));
-		pieces.add(new Piece(Side.HEART_OUT, Side.DIAMOND_OUT, Side.DIAMOND_IN, Side.HEART_IN));
-		pieces.add(new Piece(Side.SPADE_OUT, Side.DIAMOND_OUT, Side.HEART_IN, Side.DIAMOND_IN));
-		pieces.add(new Piece(Side.CLUB_OUT, Side.HEART_OUT, Side.SPADE_IN, Side.HEART_IN));
-		pieces.add(new Piece(Side.DIAMOND_OUT, Side.CLUB_OUT, Side.CLUB_IN, Side.DIAMOND_IN));
+		pieces.add(new Piece(0, Side.CLUB_OUT, Side.HEART_OUT, Side.DIAMOND_IN, Side.CLUB_IN));
+		pieces.add(new Piece(1, Side.SPADE_OUT, Side.DIAMOND_OUT, Side.SPADE_IN, Side.HEART_IN));
+		pieces.add(new Piece(2, Side.HEART_OUT, Side.SPADE_OUT, Side.SPADE_IN, Side.CLUB_IN));
+		pieces.add(new Piece(3, Side.HEART_OUT, Side.DIAMOND_OUT, Side.CLUB_IN, Side.CLUB_IN));
+		pieces.add(new Piece(4, Side.SPADE_OUT, Side.SPADE_OUT, Side.HEART_IN, Side.CLUB_IN));
+		pieces.add(new Piece(5, Side.HEART_OUT, Side.DIAMOND_OUT, Side.DIAMOND_IN, Side.HEART_IN));
+		pieces.add(new Piece(6, Side.SPADE_OUT, Side.DIAMOND_OUT, Side.HEART_IN, Side.DIAMOND_IN));
+		pieces.add(new Piece(7, Side.CLUB_OUT, Side.HEART_OUT, Side.SPADE_IN, Side.HEART_IN));
+		pieces.add(new Piece(8, Side.DIAMOND_OUT, Side.CLUB_OUT, Side.CLUB_IN, Side.DIAMOND_IN));
 	}
 
 	/*
@@ -242,6 +339,49 @@ public class Display {
 		pieceComps.add(new PieceComponent("resources\\puzzle pieces\\piece_9.png", pieces.get(8),8));
 	}
 
+	/*
+	 * Gets a hint from the HintEngine and does it: either the next 
+	 * piece is put on the board, or a wrong piece is taken off and 
+	 * put back in the HolderPanel. The pieces already on the board 
+	 * are kept. Does nothing if the solution has been displayed.
+	 */
+	private static void showHint() {
+		if (listener.isSolutionDisplayed()) return;
+		HintEngine.Hint hint = hintEngine.getHint(boardComponent.getPuzzle());
+		if (hint == null) return;
+		Placement placement = hint.getPlacement();
+		int row = placement.getRow();
+		int col = placement.getCol();
+		PieceComponent pieceComp = pieceComps.get(placement.getPiece().getId());
+		if (hint.isRemoval()) {
+			boardComponent.removePieceComp(row, col);
+			listener.toHolder(pieceComp);
+		}
+		else {
+			holderPanel.removeFromPanel(pieceComp);
+			pieceComp.setOrientation(placement.getOrientation());
+			boardComponent.setPieceComp(pieceComp, row, col);
+			if (!timerPanel.isRunning()) {
+				timerPanel.setVisible(false);
+			}
+		}
+		boardComponent.repaintCell(row, col);
+		checker.check(boardComponent.getPuzzle());
+		if (boardComponent.isSolved()) {
+			solved();
+		}
+	}
+
+	/*
+	 * Stops the solver being watched, if there is one.
+	 */
+	private static void stopAnimator() {
+		if (animator != null) {
+			animator.stop();
+			animator = null;
+		}
+	}
+
 	/*
 	 * If the puzzle is solved, a congratulations screen is displayed 
 	 * with your time (if you started the timer) and a button to restart.
@@ -286,6 +426,7 @@ public class Display {
 			public void actionPerformed(ActionEvent e) {
 				boardComponent.reset();
 				holderPanel.reset();
+				checker.check(boardComponent.getPuzzle());
 				glassPane.removeAll();
 				glassPane.setVisible(false);
 			}
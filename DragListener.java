@@ -1,9 +1,16 @@
 import java.awt.Component;
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
 import javax.swing.JLayeredPane;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.event.MouseInputAdapter;
 
 /**
@@ -15,6 +22,22 @@ import javax.swing.event.MouseInputAdapter;
  * If the solution is displayed, it prevents the user from 
  * doing anything besides hit the reset button.
  * 
+ * It also zooms the BoardComponent with the mouse wheel, and 
+ * pans it when dragging with the middle mouse button. When the 
+ * mouse is over an empty spot on the BoardComponent, the pieces 
+ * that fit there are highlighted in the HolderPanel.
+ * 
+ * Points are converted between components with the BoardGeometry
+ * of the BoardComponent, into Points that are kept and reused, 
+ * so handling a mouse event doesn't make any new objects.
+ * 
+ * After every drop, the board is given to a SolvabilityChecker 
+ * (if there is one), to find out if it can still be solved.
+ * 
+ * While dragging, the PieceComponent is only moved once per 
+ * frame of the screen, no matter how many mouse events come in, 
+ * and only the area it left and the area it moved to get repainted.
+ * 
  * @author Peter Meglis and Ajay Suresh
  * 6 May 2016
  */
@@ -26,20 +49,30 @@ public class DragListener extends MouseInputAdapter {
 	private JPanel puzzlePanel;
 	private BoardComponent boardComponent;
 	private TimerPanel timerPanel;
+	private SolvabilityChecker checker;
 	
-	private int boardStartX = 407;
-	private int boardStartY = 74;
-	
-	private final int xGap = 150;
-	private final int yGap = 150;
-	
-	private final int placeShiftX = 307;
-	private final int placeShiftY = 24;
+	private BoardGeometry geometry;
 
-	private int clickShiftX;
-	private int clickShiftY;
+	// where the mouse is on the dragged PieceComponent's image
+	private int grabX;
+	private int grabY;
 
-	private int scale = 252;
+	private boolean isPanning = false;
+	private int panX;
+	private int panY;
+
+	private final Point mousePoint = new Point();
+	private final Point rowCol = new Point();
+	private final Point imageXY = new Point();
+	private final Rectangle cellBounds = new Rectangle();
+
+	// the spot on the board the highlighted pieces fit in
+	private int hoverRow = -1;
+	private int hoverCol = -1;
+
+	private Timer dragTimer;
+	private int dragX;
+	private int dragY;
 
 	private boolean isPressed = false;
 	private boolean pickedUpFromBoard = false;
@@ -61,6 +94,28 @@ public class DragListener extends MouseInputAdapter {
 		this.puzzlePanel = puzzlePanel;
 		this.boardComponent = boardComponent;
 		this.timerPanel = timerPanel;
+		this.geometry = boardComponent.getGeometry();
+
+		dragTimer = new Timer(1000 / getRefreshRate(), new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				moveDraggedPiece();
+			}
+		});
+		dragTimer.setRepeats(false);
+	}
+
+	/*
+	 * Gets the refresh rate of the screen, or 60 if it isn't known.
+	 * 
+	 * Returns:
+	 * 		int; the number of frames per second
+	 */
+	private static int getRefreshRate() {
+		if (GraphicsEnvironment.isHeadless()) return 60;
+		DisplayMode mode = GraphicsEnvironment.getLocalGraphicsEnvironment()
+				.getDefaultScreenDevice().getDisplayMode();
+		int rate = mode.getRefreshRate();
+		return (rate == DisplayMode.REFRESH_RATE_UNKNOWN) ? 60 : rate;
 	}
 
 	/*
@@ -72,20 +127,24 @@ public class DragListener extends MouseInputAdapter {
 	 */
 	public void mousePressed(MouseEvent e)
 	{
+		if (SwingUtilities.isMiddleMouseButton(e)) {
+			isPanning = true;
+			panX = e.getX();
+			panY = e.getY();
+			return;
+		}
 		if (isSolutionDisplayed) return;
+		clearHighlight();
 		if (SwingUtilities.isRightMouseButton(e)) {
 			if (piece != null) {
 				piece.rotateClockwise();
 				return;
 			}
-			Component c = e.getComponent();
-			if (c instanceof HolderPanel) {
-				c =  c.getComponentAt(e.getX(), e.getY());
-				if (c instanceof PieceComponent) {
-					piece = (PieceComponent)c;
-					piece.rotateClockwise();
-					pickedUpFromBoard = false;
-					piece = null;
+			if (e.getComponent() instanceof HolderPanel) {
+				PieceComponent pieceComp = holderPanel.getPieceAt(e.getX(), e.getY());
+				if (pieceComp != null) {
+					pieceComp.rotateClockwise();
+					holderPanel.repaintPiece(pieceComp);
 				}
 			}
 			return;
@@ -97,39 +156,40 @@ public class DragListener extends MouseInputAdapter {
 			// Gets the PieceComponent from the holder and moves to Drag Layer
 			Component c =  e.getComponent();
 			if (c instanceof HolderPanel) {
-				c = holderPanel.getComponentAt(e.getX(),e.getY());
-				if (c instanceof PieceComponent) {
-					clickShiftX = -57;
-					clickShiftY = -32;
-					piece = (PieceComponent)c;
+				piece = holderPanel.getPieceAt(e.getX(),e.getY());
+				if (piece != null) {
+					holderPanel.cellBounds(e.getX(), e.getY(), cellBounds);
+					grabX = e.getX() - cellBounds.x;
+					grabY = e.getY() - cellBounds.y;
 					
 					holderPanel.removeFromPanel(piece);
-					piece.setLocation(e.getX() + clickShiftX, e.getY() + clickShiftY);
+					convertPoint(e.getComponent(), e.getX(), e.getY(), layeredPane, mousePoint);
+					piece.setLocation(mousePoint.x - grabX, mousePoint.y - grabY);
 					layeredPane.add(piece, JLayeredPane.DRAG_LAYER);
+					layeredPane.repaint(piece.getBounds());
 				}
 			}
 			// Gets the PieceComponent from the BoardComponent and moves to the Drag Layer
 			else if (c instanceof JPanel) {
-				c = boardComponent.getComponentAt(e.getX(), e.getY());
-				
-				Point rowCol = toRowCol(e.getPoint(),false);
-				int row = rowCol.x;
-				int col = rowCol.y;
-				clickShiftX = 135;
-				clickShiftY = -120;
-
-				if (row > -1 && col > -1) {
+				convertPoint(e.getComponent(), e.getX(), e.getY(), boardComponent, mousePoint);
+				if (geometry.toRowCol(mousePoint.x, mousePoint.y, rowCol)) {
+					int row = rowCol.x;
+					int col = rowCol.y;
 					piece = boardComponent.getPieceComp(row, col);
 					if (piece == null) return;
 					pickedUpFromBoard = true;
 					boardComponent.removePieceComp(row,col);
+					boardComponent.repaintCell(row,col);
 
-					puzzlePanel.remove(piece);
-					puzzlePanel.validate();
-					puzzlePanel.repaint();
-					
-					piece.setLocation(e.getX() + clickShiftX, e.getY() + clickShiftY);
+					geometry.toXY(row, col, imageXY);
+					grabX = mousePoint.x - imageXY.x;
+					grabY = mousePoint.y - imageXY.y;
+
+					piece.scaleImage(geometry.getImageSize());
+					convertPoint(e.getComponent(), e.getX(), e.getY(), layeredPane, mousePoint);
+					piece.setLocation(mousePoint.x - grabX, mousePoint.y - grabY);
 					layeredPane.add(piece, JLayeredPane.DRAG_LAYER);
+					layeredPane.repaint(piece.getBounds());
 				}
 			}
 			return;
@@ -138,24 +198,51 @@ public class DragListener extends MouseInputAdapter {
 
 	/*
 	 * Moves the PieceComponent around, staying within the 
-	 * boundaries of the Frame. Does nothing if the solution
-	 * has been displayed.
+	 * boundaries of the Frame. The move only happens on the next
+	 * frame, so many drag events in one frame only move it once.
+	 * Does nothing if the solution has been displayed. If the 
+	 * middle mouse button is held down, the BoardComponent is 
+	 * panned instead.
 	 */
 	public void mouseDragged(MouseEvent e)
 	{
+		if (isPanning) {
+			boardComponent.panBy(e.getX() - panX, e.getY() - panY);
+			panX = e.getX();
+			panY = e.getY();
+			return;
+		}
 		if (piece == null || isSolutionDisplayed) return;
 
-		int x = e.getX() + clickShiftX;
+		convertPoint(e.getComponent(), e.getX(), e.getY(), layeredPane, mousePoint);
+		int x = mousePoint.x - grabX;
 		int xMax = layeredPane.getWidth() - piece.getWidth();
 		x = Math.min(x, xMax);
 		x = Math.max(x, 0);
 
-		int y = e.getY() + clickShiftY;
+		int y = mousePoint.y - grabY;
 		int yMax = layeredPane.getHeight() - piece.getHeight();
 		y = Math.min(y, yMax);
 		y = Math.max(y, 0);
 
-		piece.setLocation(x, y);
+		dragX = x;
+		dragY = y;
+		if (!dragTimer.isRunning()) {
+			dragTimer.start();
+		}
+	}
+
+	/*
+	 * Moves the dragged PieceComponent to the last location it 
+	 * was dragged to. Moving it only damages its old and new 
+	 * bounds on the JLayeredPane, and nothing is revalidated.
+	 */
+	private void moveDraggedPiece() {
+		if (piece == null) return;
+		Rectangle damage = piece.getBounds();
+		piece.setLocation(dragX, dragY);
+		damage.add(piece.getBounds());
+		layeredPane.repaint(damage);
 	}
 
 	/*
@@ -168,6 +255,10 @@ public class DragListener extends MouseInputAdapter {
 	 */
 	public void mouseReleased(MouseEvent e)
 	{
+		if (SwingUtilities.isMiddleMouseButton(e)) {
+			isPanning = false;
+			return;
+		}
 		if (SwingUtilities.isRightMouseButton(e) || isSolutionDisplayed) {
 			return;
 		}
@@ -175,27 +266,17 @@ public class DragListener extends MouseInputAdapter {
 			isPressed = false;
 			if (piece == null) return;
 
-			piece.setVisible(false);
+			dragTimer.stop();
+			Rectangle damage = piece.getBounds();
 			layeredPane.remove(piece);
-			piece.setVisible(true);
-			layeredPane.repaint();
-			layeredPane.revalidate();
-
-
-			int xMax = layeredPane.getWidth() - piece.getWidth();
-			int x = Math.min(e.getX(), xMax);
-			if (pickedUpFromBoard) x += 260;
-			x = Math.max(x, 0);
+			layeredPane.repaint(damage);
 
-			int yMax = layeredPane.getHeight() - piece.getHeight();
-			int y = Math.min(e.getY(), yMax);
-			if (pickedUpFromBoard) y -= 23;
-			y = Math.max(y, 0);
-
-			
-			toBoard(piece,toRowCol(new Point(x,y),true));
+			toBoard(piece,toRowCol(e.getComponent(),e.getX(),e.getY()));
 			pickedUpFromBoard = false;
 			piece = null;
+			if (checker != null) {
+				checker.check(boardComponent.getPuzzle());
+			}
 			if (boardComponent.isSolved()) {
 				Display.solved();
 			}
@@ -205,19 +286,52 @@ public class DragListener extends MouseInputAdapter {
 	
 	
 	/*
-	 * Displays the image for a PieceComponent at a row and col.
-	 * 
-	 * Parameters:
-	 * 		PieceComponent pieceComp = the PieceComponent to display
-	 * 		Point rowCol = the row (rowCol.x) and column (rowCol.y) to
-	 * 			display the PieceComponent
+	 * When the mouse moves over an empty spot on the BoardComponent,
+	 * the PieceComponents that fit there are highlighted in the
+	 * HolderPanel. The highlight only changes when the spot does.
+	 */
+	public void mouseMoved(MouseEvent e)
+	{
+		if (isSolutionDisplayed || piece != null || e.getComponent() instanceof HolderPanel) return;
+		Point rowCol = toRowCol(e.getComponent(), e.getX(), e.getY());
+		if (rowCol.x == hoverRow && rowCol.y == hoverCol) return;
+		hoverRow = rowCol.x;
+		hoverCol = rowCol.y;
+		if (hoverRow < 0 || boardComponent.getPieceComp(hoverRow, hoverCol) != null) {
+			holderPanel.setHighlighted(null);
+		}
+		else {
+			holderPanel.setHighlighted(boardComponent.getFits(hoverRow, hoverCol));
+		}
+	}
+
+	/*
+	 * Takes away the highlight when the mouse leaves the puzzle.
+	 */
+	public void mouseExited(MouseEvent e)
+	{
+		if (e.getComponent() instanceof HolderPanel) return;
+		clearHighlight();
+	}
+
+	/*
+	 * Takes away the highlight from the HolderPanel.
 	 */
-	public void displayImage(PieceComponent pieceComp, Point rowCol) {
-		pieceComp.scaleImage(scale);
-		Point xYCoords = toXY(rowCol);
-		pieceComp.setLocation(xYCoords.x,xYCoords.y);
-		puzzlePanel.add(pieceComp);
-		puzzlePanel.setComponentZOrder(pieceComp, 0);
+	private void clearHighlight() {
+		hoverRow = -1;
+		hoverCol = -1;
+		holderPanel.setHighlighted(null);
+	}
+
+	/*
+	 * Zooms the BoardComponent in or out when the mouse wheel 
+	 * is turned over it.
+	 */
+	public void mouseWheelMoved(MouseWheelEvent e)
+	{
+		convertPoint(e.getComponent(), e.getX(), e.getY(), boardComponent, mousePoint);
+		if (!boardComponent.contains(mousePoint)) return;
+		boardComponent.zoomAt(mousePoint.x, mousePoint.y, Math.pow(1.1, -e.getPreciseWheelRotation()));
 	}
 	
 	/*
@@ -225,16 +339,7 @@ public class DragListener extends MouseInputAdapter {
 	 * the BoardComponent.
 	 */
 	public void updateBoardComponent() {
-		for (int row = 0; row < 3; row++) {
-			for (int col = 0; col < 3; col++) {
-				PieceComponent pieceComp = boardComponent.getPieceComp(row, col);
-				if (pieceComp != null) {
-					displayImage(pieceComp,new Point(row,col));
-				}
-			}
-		}
-		puzzlePanel.revalidate();
-		puzzlePanel.repaint();
+		boardComponent.repaint();
 	}
 
 	/*
@@ -245,89 +350,45 @@ public class DragListener extends MouseInputAdapter {
 	 * 		PieceComponent piece = the PieceComponent to move to the HolderPanel
 	 */
 	public void toHolder(PieceComponent pieceComp) {
-		pieceComp.scaleImage(121);
+		pieceComp.scaleImage(HolderPanel.CELL_SIZE);
 		holderPanel.addToPanel(pieceComp);
 	}
 
 	/*
-	 * Converts an xy point into rows (x) and colums (y) for the 
-	 * BoardComponent. If the PieceComponent was taken from the BoardComponent, 
-	 * then re-added, the flag isPlaceOnBoard should be true, the xy 
-	 * location to place the PieceComponent is shifted, and must be corrected.
+	 * Converts a point on a component into the row (x) and column (y)
+	 * of the BoardComponent under it, using (-1,-1) if the point 
+	 * isn't over a cell of the board. The same Point is given back 
+	 * every time, so it should be used before the next call.
 	 * 
 	 * Parameters:
-	 * 		Point xYPoint = the (x,y) point being converted to rows and columns
-	 * 		boolean isPlaceOnBoard = true if a PieceComponent was re-added to the
-	 * 			BoardComponent after just being removed from the BoardComponent. False
-	 * 			if the PieceComponent was removed from the holder, and added to the
-	 * 			BoardComponent.
+	 * 		Component source = the component the point is on
+	 * 		int x = the x coordinate on the component
+	 * 		int y = the y coordinate on the component
 	 * 
 	 * Returns:
 	 * 		Point; the point in row (x) column (y) form
 	 */
-	public Point toRowCol(Point xYPoint, boolean isPlaceOnBoard) {
-		int boardStartX;
-		int boardStartY;
-		
-		if (!isPlaceOnBoard) {
-			boardStartX = 150;
-			boardStartY = 100;
-		} else {
-			boardStartX = this.boardStartX;
-			boardStartY = this.boardStartY;
-		}
-		int xPos = xYPoint.x;
-		int yPos = xYPoint.y;
-
-		if (yPos < boardStartY || yPos > boardStartY + 3*yGap) return new Point(-1,-1);
-		if (xPos < boardStartX || xPos > boardStartX + 3*xGap) return new Point(-1,-1);
-
-		if (yPos < boardStartY + yGap) {
-			if (xPos < boardStartX + xGap) return new Point(0,0);
-			else if (xPos < boardStartX + (2*xGap)) return new Point(0,1);
-			else return new Point(0,2);
-		}
-		else if (yPos < boardStartY + 2*yGap) {
-			if (xPos < boardStartX + xGap) return new Point(1,0);
-			else if (xPos < boardStartX + (2*xGap)) return new Point(1,1);
-			else return new Point(1,2);
-		}
-		else {
-			if (xPos < boardStartX + xGap) return new Point(2,0);
-			else if (xPos < boardStartX + (2*xGap)) return new Point(2,1);
-			else return new Point(2,2);
-		}
+	public Point toRowCol(Component source, int x, int y) {
+		convertPoint(source, x, y, boardComponent, mousePoint);
+		geometry.toRowCol(mousePoint.x, mousePoint.y, rowCol);
+		return rowCol;
 	}
 
 	/*
-	 * Converts a row (x) and column (y) point to xy (on the puzzlePanel) coordinates.
+	 * Converts a point from one component's coordinates to another's,
+	 * putting the result into a given Point instead of making a new one.
 	 * 
 	 * Parameters:
-	 * 		Point rowCol = the point in row (x) column (y) form
-	 * 
-	 * Returns:
-	 * 		Point; the point in xy form for the Puzzle Panel
+	 * 		Component source = the component the point is on
+	 * 		int x = the x coordinate on the source
+	 * 		int y = the y coordinate on the source
+	 * 		Component destination = the component to convert to
+	 * 		Point result = the Point to put the converted point in
 	 */
-	public Point toXY(Point rowCol) {	
-		int row = rowCol.x;
-		int col = rowCol.y;
-
-		if (row == 0) {
-			if (col == 0) return new Point(boardStartX - placeShiftX, boardStartY - placeShiftY);
-			else if (col == 1) return new Point(boardStartX + xGap - placeShiftX, boardStartY - placeShiftY);
-			else return new Point(boardStartX + 2*xGap - placeShiftX, boardStartY - placeShiftY);
-		}
-		else if (row == 1) {
-			if (col == 0) return new Point(boardStartX - placeShiftX, boardStartY + yGap - placeShiftY);
-			else if (col == 1) return new Point(boardStartX + xGap - placeShiftX, boardStartY + yGap - placeShiftY);
-			else return new Point(boardStartX + 2*xGap - placeShiftX, boardStartY + yGap - placeShiftY);
-		}
-		else {
-			if (col == 0) return new Point(boardStartX - placeShiftX, boardStartY + 2*yGap - placeShiftY);
-			else if (col == 1) return new Point(boardStartX + xGap - placeShiftX, boardStartY + 2*yGap - placeShiftY);
-			else if (col == 2) return new Point(boardStartX + 2*xGap - placeShiftX, boardStartY + 2*yGap - placeShiftY);
-			return new Point(-2,-2);
-		}
+	private static void convertPoint(Component source, int x, int y, Component destination, Point result) {
+		result.setLocation(x, y);
+		SwingUtilities.convertPointToScreen(result, source);
+		SwingUtilities.convertPointFromScreen(result, destination);
 	}
 		
 
@@ -341,8 +402,8 @@ public class DragListener extends MouseInputAdapter {
 	 */
 	public void toBoard(PieceComponent piece, Point rowCol) {
 		if (boardComponent.doesFit(piece, rowCol.x, rowCol.y)) {
-			displayImage(piece, rowCol);
 			boardComponent.setPieceComp(piece, rowCol.x, rowCol.y);
+			boardComponent.repaintCell(rowCol.x, rowCol.y);
 			piece = null;
 			if (!timerPanel.isRunning()) {
 				timerPanel.setVisible(false);
@@ -356,12 +417,27 @@ public class DragListener extends MouseInputAdapter {
 		}
 	}
 
+	/*
+	 * Sets the SolvabilityChecker that is given the board after 
+	 * every drop, or null for none.
+	 */
+	public void setSolvabilityChecker(SolvabilityChecker checker) {
+		this.checker = checker;
+	}
+
 	/*
 	 * Updates the variable isSolutionDisplayed.
 	 */
 	public void setSolutionDisplayed(boolean isSolutionDisplayed) {
 		this.isSolutionDisplayed = isSolutionDisplayed;
 	}
+
+	/*
+	 * Returns whether the solution is being displayed.
+	 */
+	public boolean isSolutionDisplayed() {
+		return isSolutionDisplayed;
+	}
 	
 
 }
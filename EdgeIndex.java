@@ -0,0 +1,136 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * The purpose of this class is to quickly find the pieces that fit at a location on a board
+ * Every side of every piece in the index is kept in a bucket for its Side value, no matter how the piece is turned
+ * To find what fits next to a neighbor, only the bucket of the matching Side value has to be looked through
+ * Pieces are added and removed one at a time as they move on and off the board, each in constant time
+ */
+public class EdgeIndex {
+
+	//one bucket for each Side value from -4 to 4
+	private List<List<Edge>> buckets = new ArrayList<List<Edge>>();
+	//the four Edges of every piece in the index
+	private IdentityHashMap<Piece, Edge[]> edges = new IdentityHashMap<Piece, Edge[]>();
+
+	//Constructs an empty index
+	public EdgeIndex() {
+		for (int i = 0; i < 9; i++) {
+			buckets.add(new ArrayList<Edge>());
+		}
+	}
+
+	//Adds the sides of a piece to the index
+	public void add(Piece piece) {
+		if (edges.containsKey(piece)) return;
+		Edge[] pieceEdges = new Edge[4];
+		for (int i = 0; i < 4; i++) {
+			Side side = piece.getSide(Direction.TOP, (4 - i) % 4);
+			List<Edge> bucket = buckets.get(side.getValue() + 4);
+			pieceEdges[i] = new Edge(piece, i, bucket.size());
+			bucket.add(pieceEdges[i]);
+		}
+		edges.put(piece, pieceEdges);
+	}
+
+	//Removes the sides of a piece from the index
+	public void remove(Piece piece) {
+		Edge[] pieceEdges = edges.remove(piece);
+		if (pieceEdges == null) return;
+		for (Edge edge : pieceEdges) {
+			List<Edge> bucket = buckets.get(piece.getSide(Direction.TOP, (4 - edge.side) % 4).getValue() + 4);
+			//the last Edge in the bucket is moved into the removed Edge's spot
+			Edge last = bucket.remove(bucket.size() - 1);
+			if (last != edge) {
+				bucket.set(edge.position, last);
+				last.position = edge.position;
+			}
+		}
+	}
+
+	//returns true if the piece is in the index
+	public boolean contains(Piece piece) {
+		return edges.containsKey(piece);
+	}
+
+	//returns the number of pieces in the index
+	public int size() {
+		return edges.size();
+	}
+
+	//Finds every piece in the index, and every orientation of it, that fits at the
+	//specified location of the board, using the same rules as Puzzle.doesFit
+	public List<Placement> getFits(Board board, int row, int col) {
+		List<Placement> fits = new ArrayList<Placement>();
+		//the Side value a fitting piece needs in each direction, or 0 if there is no neighbor
+		int[] needed = new int[4];
+		needed[Direction.TOP.getValue()] = neededValue(board, row - 1, col, Direction.BOTTOM);
+		needed[Direction.RIGHT.getValue()] = neededValue(board, row, col + 1, Direction.LEFT);
+		needed[Direction.BOTTOM.getValue()] = neededValue(board, row + 1, col, Direction.TOP);
+		needed[Direction.LEFT.getValue()] = neededValue(board, row, col - 1, Direction.RIGHT);
+
+		//the direction with the smallest bucket is the only one that gets looked through
+		int best = -1;
+		for (int d = 0; d < 4; d++) {
+			if (needed[d] != 0 && (best < 0 || bucket(needed[d]).size() < bucket(needed[best]).size())) {
+				best = d;
+			}
+		}
+		if (best < 0) {
+			for (Piece piece : edges.keySet()) {
+				for (int orientation = 0; orientation < 4; orientation++) {
+					fits.add(new Placement(piece, orientation, row, col));
+				}
+			}
+			return fits;
+		}
+		for (Edge edge : bucket(needed[best])) {
+			//the orientation that turns this side to face the neighbor
+			int orientation = (best - edge.side + 4) % 4;
+			if (fitsAll(edge.piece, orientation, needed)) {
+				fits.add(new Placement(edge.piece, orientation, row, col));
+			}
+		}
+		return fits;
+	}
+
+	//returns the bucket for a Side value
+	private List<Edge> bucket(int value) {
+		return buckets.get(value + 4);
+	}
+
+	//returns true if the piece, turned to the orientation, has every needed Side value
+	private static boolean fitsAll(Piece piece, int orientation, int[] needed) {
+		for (Direction direction : Direction.values()) {
+			int value = needed[direction.getValue()];
+			if (value != 0 && piece.getSide(direction, orientation).getValue() != value) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	//returns the Side value that fits against the neighbor at the location, or 0 if there is no neighbor
+	private static int neededValue(Board board, int row, int col, Direction facing) {
+		if (!board.isOccupied(row, col)) return 0;
+		return board.getPiece(row, col).getSide(facing).getValue() * -1;
+	}
+
+	//One side of a piece, and where it is kept in its bucket
+	private static class Edge {
+		//the piece the side belongs to
+		private Piece piece;
+		//which of the piece's assigned sides this is (0 is top, 1 is right, and so on)
+		private int side;
+		//where this Edge is in its bucket
+		private int position;
+
+		private Edge(Piece piece, int side, int position) {
+			this.piece = piece;
+			this.side = side;
+			this.position = position;
+		}
+	}
+}
@@ -0,0 +1,142 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The purpose of this class is to turn a Puzzle into plain numbers that a Solver can search quickly
+ * Every way of placing a piece is a candidate, numbered piece * 4 + orientation, where the pieces are numbered in order of their ids
+ * The table keeps the Side value each candidate has in each direction, and, for every direction and Side value,
+ * a bitset of the candidates with that Side value in that direction, so the candidates that fit next to one can be found with an AND
+ * Spots are numbered row by row. A spot that already has a piece on it in the Puzzle is fixed to that candidate
+ */
+public class EdgeTable {
+
+	//the size of the board
+	private int rows;
+	private int cols;
+	//the pieces, in order of their ids
+	private List<Piece> pieces;
+	//the Side value of every candidate in every direction, at candidate * 4 + direction
+	private int[] sides;
+	//the number of longs in a bitset of candidates
+	private int words;
+	//the candidates with each Side value in each direction, at direction * 9 + value + 4
+	private long[][] withSide;
+	//the candidate fixed at every spot, or -1 if the spot is free
+	private int[] fixed;
+
+	//Makes a table from every piece of the puzzle, on the board or not. Pieces on the board are fixed where they are
+	public EdgeTable(Puzzle puzzle) {
+		rows = puzzle.getRows();
+		cols = puzzle.getCols();
+		pieces = new ArrayList<Piece>(puzzle.getUnused());
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				if (puzzle.getPiece(row, col) != null)
+					pieces.add(puzzle.getPiece(row, col));
+			}
+		}
+		Collections.sort(pieces, new Comparator<Piece>() {
+			public int compare(Piece a, Piece b) {
+				return Integer.compare(a.getId(), b.getId());
+			}
+		});
+
+		int candidates = pieces.size() * 4;
+		words = (candidates + 63) / 64;
+		sides = new int[candidates * 4];
+		withSide = new long[4 * 9][words];
+		for (int piece = 0; piece < pieces.size(); piece++) {
+			for (int orientation = 0; orientation < 4; orientation++) {
+				int candidate = piece * 4 + orientation;
+				for (Direction direction : Direction.values()) {
+					int d = direction.getValue();
+					int value = pieces.get(piece).getSide(direction, orientation).getValue();
+					sides[candidate * 4 + d] = value;
+					withSide[d * 9 + value + 4][candidate >>> 6] |= 1L << candidate;
+				}
+			}
+		}
+
+		fixed = new int[rows * cols];
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				Piece piece = puzzle.getPiece(row, col);
+				fixed[row * cols + col] = (piece == null) ? -1 : pieces.indexOf(piece) * 4 + piece.getOrientation();
+			}
+		}
+	}
+
+	//returns the number of rows
+	public int getRows() {
+		return rows;
+	}
+
+	//returns the number of columns
+	public int getCols() {
+		return cols;
+	}
+
+	//returns the number of spots on the board
+	public int getSpots() {
+		return rows * cols;
+	}
+
+	//returns the number of pieces
+	public int getPieceCount() {
+		return pieces.size();
+	}
+
+	//returns the number of longs in a bitset of candidates
+	public int getWords() {
+		return words;
+	}
+
+	//returns the Side value a candidate has in a direction (0 is top, 1 is right, and so on)
+	public int getSide(int candidate, int direction) {
+		return sides[candidate * 4 + direction];
+	}
+
+	//returns the candidates with a Side value in a direction. The bitset is shared, so it must not be changed
+	public long[] getWithSide(int direction, int value) {
+		return withSide[direction * 9 + value + 4];
+	}
+
+	//returns the candidates that fit next to a candidate, in a direction from it. The bitset is shared, so it must not be changed
+	public long[] getFits(int candidate, int direction) {
+		return getWithSide((direction + 2) % 4, -sides[candidate * 4 + direction]);
+	}
+
+	//returns the spot next to a spot in a direction, or -1 if it is off the board
+	public int getNeighbor(int spot, int direction) {
+		int row = spot / cols, col = spot % cols;
+		if (direction == 0) row--;
+		else if (direction == 1) col++;
+		else if (direction == 2) row++;
+		else col--;
+		if (row < 0 || row >= rows || col < 0 || col >= cols) return -1;
+		return row * cols + col;
+	}
+
+	//returns the candidate fixed at a spot, or -1 if the spot is free
+	public int getFixed(int spot) {
+		return fixed[spot];
+	}
+
+	//returns true if two candidates fit next to each other, the second one in the direction from the first
+	public boolean fits(int candidate, int direction, int other) {
+		return sides[candidate * 4 + direction] == -sides[other * 4 + (direction + 2) % 4];
+	}
+
+	//Places the pieces of the puzzle the table was made from, the way a solution says
+	//The solution has one candidate per spot, row by row
+	public void apply(Puzzle puzzle, int[] solution) {
+		puzzle.reset();
+		for (int spot = 0; spot < solution.length; spot++) {
+			Piece piece = pieces.get(solution[spot] / 4);
+			piece.setOrientation(solution[spot] % 4);
+			puzzle.setPiece(piece, spot / cols, spot % cols);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The purpose of this class is to time the FitKernels against each other, and check that they give the same masks
+ * It makes a board of pieces with random sides, and matches every candidate code against random requirements,
+ * the way a spot with neighbors above and to the left would have, over and over, two ways:
+ * 		- batch: the codes are shuffled into a batch, so each kernel has to look up the sides of each code (match)
+ * 		- all: the codes are in order, so the sides can be loaded straight from the array (matchAll)
+ * The vector kernel is only timed if it can be loaded (see VectorFitKernel)
+ * Usage: java [--add-modules jdk.incubator.vector] FitBenchmark [size] [rounds]
+ */
+public class FitBenchmark {
+
+	public static void main(String[] args) {
+		int size = (args.length > 0) ? Integer.parseInt(args[0]) : 100;
+		int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 2000;
+		Random random = new Random(1);
+		Side[] values = Side.values();
+		List<Piece> pieces = new ArrayList<Piece>();
+		for (int i = 0; i < size * size; i++) {
+			pieces.add(new Piece(i, values[random.nextInt(values.length)], values[random.nextInt(values.length)],
+					values[random.nextInt(values.length)], values[random.nextInt(values.length)]));
+		}
+		EdgeTable table = new EdgeTable(new Puzzle(size, size, pieces));
+		int count = table.getPieceCount() * 4;
+		int[] codes = new int[count];
+		for (int i = 0; i < count; i++) {
+			codes[i] = i;
+		}
+		for (int i = count - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = codes[i];
+			codes[i] = codes[j];
+			codes[j] = swap;
+		}
+		int[][] required = new int[64][];
+		for (int i = 0; i < required.length; i++) {
+			required[i] = new int[] { values[random.nextInt(values.length)].getValue(), 0, 0,
+					(i % 4 == 0) ? 0 : values[random.nextInt(values.length)].getValue() };
+		}
+
+		FitKernel scalar = new ScalarFitKernel(table);
+		FitKernel best = FitKernel.create(table);
+		System.out.println("# " + count + " codes, " + rounds + " rounds");
+		for (int[] batch : new int[][] { codes, null }) {
+			long[] expected = time(scalar, batch, required, rounds);
+			if (best instanceof ScalarFitKernel) continue;
+			long[] actual = time(best, batch, required, rounds);
+			if (!Arrays.equals(expected, actual))
+				System.out.println("# THE MASKS ARE DIFFERENT");
+		}
+		if (best instanceof ScalarFitKernel)
+			System.out.println("# the vector kernel isn't available, run with --add-modules jdk.incubator.vector");
+	}
+
+	//Times a kernel over every requirement, rounds times, after warming it up, and prints the nanoseconds per code
+	//The codes are matched as a batch, or, if codes is null, every code is matched in order
+	//Returns the masks of the last round, one after another
+	private static long[] time(FitKernel kernel, int[] codes, int[][] required, int rounds) {
+		int count = kernel.getCodes();
+		int words = kernel.getWords();
+		long[] masks = new long[required.length * words];
+		long[] mask = new long[words];
+		long matched = 0;
+		long start = 0;
+		//the first third of the rounds are warm-up, so the JIT has compiled the kernel before the clock starts
+		int warmup = rounds / 3;
+		for (int round = 0; round < warmup + rounds; round++) {
+			if (round == warmup)
+				start = System.nanoTime();
+			for (int r = 0; r < required.length; r++) {
+				if (codes == null)
+					kernel.matchAll(required[r], mask);
+				else
+					kernel.match(codes, count, required[r], mask);
+				matched += mask[0] & 1;
+				if (round == warmup + rounds - 1)
+					System.arraycopy(mask, 0, masks, r * words, words);
+			}
+		}
+		long time = System.nanoTime() - start;
+		double perCode = (double) time / ((long) rounds * required.length * count);
+		System.out.println(String.format("%-16s %-5s %.3f ns per code, %.1f million codes/sec (%d)", kernel.getName(),
+				(codes == null) ? "all" : "batch", perCode, 1e3 / perCode, matched));
+		return masks;
+	}
+}
@@ -0,0 +1,99 @@
+import java.util.Arrays;
+
+/**
+ * The purpose of this class is to check a whole batch of candidates against what a spot needs at once
+ * A candidate is a code, piece * 4 + orientation, as in EdgeTable. What a spot needs is, for each direction,
+ * the Side value a candidate has to have there: the opposite of its neighbor's side, as in Puzzle.doesFit, or 0 if there is no neighbor,
+ * which can never be a Side value, so it means anything goes
+ * The answer is a mask, one bit per code in the batch, set if the code fits
+ * The Side values of a code are packed into one int, a byte per direction, so a kernel loads all 4 of them at once,
+ * and checks them with one AND and one compare: the bytes of the directions with a requirement are kept, and compared to the
+ * required values, packed the same way
+ * create() gives the VectorFitKernel, which compares a whole vector of codes in one step, when it was compiled and the
+ * jdk.incubator.vector module is there, and the ScalarFitKernel, which checks one code at a time, when it isn't
+ */
+public abstract class FitKernel {
+
+	//the Side values of every code, plus 4, a byte per direction (top is the lowest byte, then right, and so on)
+	protected int[] packed;
+
+	//Constructs a kernel for the candidates of a table
+	protected FitKernel(EdgeTable table) {
+		int codes = table.getPieceCount() * 4;
+		packed = new int[codes];
+		for (int code = 0; code < codes; code++) {
+			for (int d = 0; d < 4; d++) {
+				packed[code] |= (table.getSide(code, d) + 4) << (8 * d);
+			}
+		}
+	}
+
+	//Sets bit i of mask if codes[i] has the required Side value in every direction, for the first count codes
+	//The required values are top, right, bottom and left, 0 for any. The mask needs (count + 63) / 64 longs
+	public abstract void match(int[] codes, int count, int[] required, long[] mask);
+
+	//Sets bit code of mask for every code, from 0 up to every candidate of the table, that has the required Side values
+	//The codes are in order, so their sides can be loaded without looking each one up. The mask needs getWords() longs
+	public abstract void matchAll(int[] required, long[] mask);
+
+	//returns the number of codes
+	public int getCodes() {
+		return packed.length;
+	}
+
+	//returns the number of longs in a mask of every code, the same as EdgeTable.getWords()
+	public int getWords() {
+		return (packed.length + 63) >>> 6;
+	}
+
+	//returns the name of the kernel
+	public abstract String getName();
+
+	//Copies the codes that fit into out, in order, and returns how many there were
+	public int filter(int[] codes, int count, int[] required, int[] out) {
+		long[] mask = new long[(count + 63) >>> 6];
+		match(codes, count, required, mask);
+		int found = 0;
+		for (int w = 0; w < mask.length; w++) {
+			for (long bits = mask[w]; bits != 0; bits &= bits - 1) {
+				out[found++] = codes[w * 64 + Long.numberOfTrailingZeros(bits)];
+			}
+		}
+		return found;
+	}
+
+	//returns the bytes of a packed code that the required values care about
+	protected static int care(int[] required) {
+		int care = 0;
+		for (int d = 0; d < 4; d++) {
+			if (required[d] != 0)
+				care |= 0xff << (8 * d);
+		}
+		return care;
+	}
+
+	//returns the required values packed the same way as a code, with 0 for the directions that don't matter
+	protected static int want(int[] required) {
+		int want = 0;
+		for (int d = 0; d < 4; d++) {
+			if (required[d] != 0)
+				want |= (required[d] + 4) << (8 * d);
+		}
+		return want;
+	}
+
+	//clears the part of a mask used by count codes
+	protected static void clear(long[] mask, int count) {
+		Arrays.fill(mask, 0, (count + 63) >>> 6, 0);
+	}
+
+	//Returns the fastest kernel there is for a table: the VectorFitKernel if it can be loaded, or else the ScalarFitKernel
+	//The VectorFitKernel is found by name, so this class doesn't need the incubator module to compile or run
+	public static FitKernel create(EdgeTable table) {
+		try {
+			return (FitKernel) Class.forName("VectorFitKernel").getConstructor(EdgeTable.class).newInstance(table);
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return new ScalarFitKernel(table);
+		}
+	}
+}
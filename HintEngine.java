@@ -0,0 +1,163 @@
+import java.util.List;
+
+/**
+ * The purpose of this class is to give the player hints, starting from the pieces they have already placed
+ * A hint is either the next piece to place, or a piece on the board that is not part of any solution and has to come off
+ * The last solution that was found is kept, so while the player follows it, every hint is just looked up
+ * When the player goes their own way, the board they made is completed with Puzzle.complete(), without taking anything off
+ * Only when that fails is the whole puzzle solved, once, to find the piece that is wrong
+ * Boards are kept as one number per spot, row by row: the four sides of the piece as it is turned there, or 0 if empty.
+ * Two pieces turned to the same sides can be swapped in any solution, so that is all a hint has to match
+ */
+public class HintEngine {
+
+	//the last solution that was found, that the hints come from
+	private int[] solution;
+	//a solution of the whole puzzle from an empty board, or null if it hasn't been needed yet
+	private int[] fullSolution;
+	//true if the puzzle turned out to have no solution at all
+	private boolean unsolvable;
+
+	//Returns the next hint for the puzzle, or null if the board is full or the puzzle can't be solved
+	//The puzzle is not changed
+	public Hint getHint(Puzzle puzzle) {
+		int[] board = toState(puzzle);
+		if (solution == null || !matches(board, solution)) {
+			Puzzle copy = puzzle.copy();
+			if (copy.complete()) {
+				solution = toState(copy);
+			} else {
+				return findWrongPiece(puzzle, board);
+			}
+		}
+		return nextPlacement(puzzle, board);
+	}
+
+	//Forgets the solution that was found, for when the pieces of the puzzle change
+	public void clear() {
+		solution = null;
+		fullSolution = null;
+		unsolvable = false;
+	}
+
+	//Returns a placement of an unused piece into the first empty spot, that follows the solution
+	private Hint nextPlacement(Puzzle puzzle, int[] board) {
+		for (int i = 0; i < board.length; i++) {
+			if (board[i] != 0) continue;
+			for (Piece piece : puzzle.getUnused()) {
+				for (int orientation = 0; orientation < 4; orientation++) {
+					if (piece.getPackedSides(orientation) == solution[i]) {
+						return new Hint(new Placement(piece, orientation, i / puzzle.getCols(), i % puzzle.getCols()), false);
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	//Returns a hint to remove the first placed piece that does not match the solution of the whole puzzle.
+	//The puzzle can be solved turned around too, so the way of turning the solution that matches the most
+	//placed pieces is used. That solution is kept, so once the wrong pieces are off, the hints come from it
+	private Hint findWrongPiece(Puzzle puzzle, int[] board) {
+		if (unsolvable) return null;
+		if (fullSolution == null) {
+			Puzzle copy = puzzle.copy();
+			copy.reset();
+			if (!copy.complete()) {
+				unsolvable = true;
+				return null;
+			}
+			fullSolution = toState(copy);
+		}
+		int rows = puzzle.getRows(), cols = puzzle.getCols();
+		int[] best = null;
+		int bestMatches = -1;
+		int[] turned = fullSolution;
+		for (int turns = 0; turns < 4; turns++) {
+			//a puzzle that isn't square only looks the same when turned all the way around
+			if (rows == cols || turns % 2 == 0) {
+				int matches = 0;
+				for (int i = 0; i < board.length; i++) {
+					if (board[i] != 0 && board[i] == turned[i]) matches++;
+				}
+				if (matches > bestMatches) {
+					best = turned;
+					bestMatches = matches;
+				}
+			}
+			turned = turnClockwise(turned, (turns % 2 == 0) ? rows : cols, (turns % 2 == 0) ? cols : rows);
+		}
+		solution = best;
+		for (int i = 0; i < board.length; i++) {
+			if (board[i] != 0 && board[i] != best[i]) {
+				int row = i / cols, col = i % cols;
+				Piece piece = puzzle.getPiece(row, col);
+				return new Hint(new Placement(piece, piece.getOrientation(), row, col), true);
+			}
+		}
+		return null;
+	}
+
+	//Returns a board turned 90 degrees clockwise, with every piece on it turned too
+	private static int[] turnClockwise(int[] state, int rows, int cols) {
+		int[] turned = new int[state.length];
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				int sides = state[row * cols + col];
+				//the left side becomes the top, and the rest move over one
+				sides = ((sides & 0xF) << 12) | (sides >>> 4);
+				turned[col * rows + (rows - 1 - row)] = sides;
+			}
+		}
+		return turned;
+	}
+
+	//Returns the board of the puzzle as one number per spot
+	private static int[] toState(Puzzle puzzle) {
+		int[] state = new int[puzzle.getRows() * puzzle.getCols()];
+		for (int row = 0; row < puzzle.getRows(); row++) {
+			for (int col = 0; col < puzzle.getCols(); col++) {
+				Piece piece = puzzle.getPiece(row, col);
+				if (piece != null)
+					state[row * puzzle.getCols() + col] = piece.getPackedSides(piece.getOrientation());
+			}
+		}
+		return state;
+	}
+
+	//returns true if every filled spot of the board is filled the same way in the solution
+	private static boolean matches(int[] board, int[] solution) {
+		for (int i = 0; i < board.length; i++) {
+			if (board[i] != 0 && board[i] != solution[i]) return false;
+		}
+		return true;
+	}
+
+	//A hint: a placement to make, or a piece on the board to take off
+	public static class Hint {
+		//the piece and where it goes, or where it is if it has to come off
+		private Placement placement;
+		//true if the piece has to be taken off the board
+		private boolean removal;
+
+		public Hint(Placement placement, boolean removal) {
+			this.placement = placement;
+			this.removal = removal;
+		}
+
+		//returns the placement to make, or the piece to take off
+		public Placement getPlacement() {
+			return placement;
+		}
+
+		//returns true if the piece has to be taken off the board
+		public boolean isRemoval() {
+			return removal;
+		}
+
+		// toString to print out a hint, like "place (1, 2) turned 3"
+		public String toString() {
+			return (removal ? "remove " : "place ") + placement;
+		}
+	}
+}
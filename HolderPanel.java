@@ -1,135 +1,421 @@
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Random;
 import javax.swing.JPanel;
 
 /**
  * HolderPanel.java
- * 
- * The HolderPanel is used to store the PieceComponents 
+ *
+ * The HolderPanel is used to store the PieceComponents
  * in an organized way. One can add and remove PieceComponents,
- * as well as sort and reset them to their initial states. Randomizing 
+ * as well as sort and reset them to their initial states. Randomizing
  * them will shuffle the order, and randomly rotate each PieceComponent.
- * 
+ * Resetting and randomizing only change the orientations and slots,
+ * and then repaint once; the images are turned when they are painted.
+ *
+ * The PieceComponents are not added to the HolderPanel as components.
+ * Instead, every PieceComponent has its own slot, and the HolderPanel
+ * just paints the slots that can be seen (it is meant to be put in
+ * a JScrollPane). Removing a PieceComponent leaves its slot empty, and
+ * adding it back puts it in the same slot, so neither one has to
+ * look through the other PieceComponents or lay anything out again.
+ *
+ * The slots can also be filtered, to only show the PieceComponents
+ * with certain Sides, and sorted by the shape of the PieceComponents.
+ * Some PieceComponents can be highlighted, like the ones that fit
+ * the spot on the board the mouse is over.
+ *
  * @author Peter Meglis and Ajay Suresh
  * 6 May 2016
  */
 public class HolderPanel extends JPanel {
-	
-	private static List<PieceComponent> pieceComps;
-	
+
+	public static final int CELL_SIZE = 121;
+	public static final int COLUMNS = 2;
+	private static final Color HIGHLIGHT = Color.decode("#3498db");
+
+	// the PieceComponent each slot belongs to
+	private PieceComponent[] slots;
+	// whether each slot's PieceComponent is in the HolderPanel right now
+	private boolean[] present;
+	// the slot of each PieceComponent, by its order number
+	private int[] slotOf;
+	private int count;
+
+	// the slots being shown, after filtering
+	private int[] view;
+	private int viewSize;
+	// where each slot is in the view, or -1 if it is filtered out
+	private int[] indexOf;
+	private List<Side> filter;
+
+	// the PieceComponent of each Piece, to find the PieceComponents to highlight
+	private IdentityHashMap<Piece, PieceComponent> pieceComps = new IdentityHashMap<Piece, PieceComponent>();
+	// whether each slot is highlighted, by the PieceComponent's order number
+	private boolean[] highlighted;
+	private List<PieceComponent> highlightedComps = new ArrayList<PieceComponent>();
+
+	private Random random = new Random();
+
 	/*
-	 * Constructs a HolderPanel from a List of PieceComponents.
+	 * Constructs a HolderPanel from a List of PieceComponents. Each
+	 * PieceComponent starts in the slot of its order number.
 	 */
 	public HolderPanel(List<PieceComponent> pieceComps) {
-		HolderPanel.pieceComps = pieceComps;
-	}	
-	
+		int maxOrder = -1;
+		for (PieceComponent p : pieceComps) {
+			maxOrder = Math.max(maxOrder, p.getOrder());
+		}
+		slots = pieceComps.toArray(new PieceComponent[pieceComps.size()]);
+		present = new boolean[slots.length];
+		slotOf = new int[maxOrder + 1];
+		highlighted = new boolean[maxOrder + 1];
+		for (PieceComponent p : pieceComps) {
+			this.pieceComps.put(p.getPiece(), p);
+		}
+		sort();
+	}
+
 	/*
-	 * Initializes the HolderPanel by adding all of the stored PieceComponents
-	 * into the HolderPanel (JPanel).
+	 * Initializes the HolderPanel by putting all of the stored
+	 * PieceComponents into their slots.
 	 */
 	public void initialize() {
-		for (PieceComponent p : pieceComps) {
-			this.add(p);
+		for (int i = 0; i < slots.length; i++) {
+			if (slots[i] != null && !present[i]) {
+				present[i] = true;
+				count++;
+			}
 		}
+		repaint();
 	}
-	
+
 	/*
-	 * Adds a PieceComponent to the HolderPanel.
-	 * 
+	 * Paints the PieceComponents in the slots that are inside the clip.
+	 *
+	 * Parameters:
+	 * 		Graphics g = the Graphics object used
+	 */
+	public void paintComponent(Graphics g) {
+		super.paintComponent(g);
+		Graphics2D g2 = (Graphics2D) g;
+		g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		Rectangle clip = g2.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+
+		int firstRow = Math.max(0, clip.y / CELL_SIZE);
+		int lastRow = (clip.y + clip.height - 1) / CELL_SIZE;
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int col = 0; col < COLUMNS; col++) {
+				int index = row * COLUMNS + col;
+				if (index >= viewSize) return;
+				int slot = view[index];
+				if (present[slot]) {
+					slots[slot].drawImage(g2, col * CELL_SIZE, row * CELL_SIZE, CELL_SIZE);
+				}
+				if (present[slot] && highlighted[slots[slot].getOrder()]) {
+					g2.setColor(HIGHLIGHT);
+					g2.setStroke(new BasicStroke(3));
+					g2.drawRoundRect(col * CELL_SIZE + 2, row * CELL_SIZE + 2, CELL_SIZE - 5, CELL_SIZE - 5, 10, 10);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Gets the size the HolderPanel needs to show all of its slots.
+	 *
+	 * Returns:
+	 * 		Dimension; the preferred size
+	 */
+	public Dimension getPreferredSize() {
+		int rows = (viewSize + COLUMNS - 1) / COLUMNS;
+		return new Dimension(COLUMNS * CELL_SIZE, rows * CELL_SIZE);
+	}
+
+	/*
+	 * Gets the PieceComponent at an xy point on the HolderPanel.
+	 *
+	 * Parameters:
+	 * 		int x = the x coordinate
+	 * 		int y = the y coordinate
+	 *
+	 * Returns:
+	 * 		PieceComponent; the PieceComponent at that point, or null if there isn't one
+	 */
+	public PieceComponent getPieceAt(int x, int y) {
+		int index = indexAt(x, y);
+		if (index < 0 || !present[view[index]]) return null;
+		return slots[view[index]];
+	}
+
+	/*
+	 * Gets the bounds of the cell at an xy point on the HolderPanel.
+	 *
+	 * Parameters:
+	 * 		int x = the x coordinate
+	 * 		int y = the y coordinate
+	 * 		Rectangle bounds = the Rectangle to put the bounds of the cell in
+	 */
+	public void cellBounds(int x, int y, Rectangle bounds) {
+		bounds.setBounds(x / CELL_SIZE * CELL_SIZE, y / CELL_SIZE * CELL_SIZE, CELL_SIZE, CELL_SIZE);
+	}
+
+	/*
+	 * Gets the index (into the shown slots) of the cell at an xy point.
+	 *
+	 * Returns:
+	 * 		int; the index, or -1 if there is no cell there
+	 */
+	private int indexAt(int x, int y) {
+		if (x < 0 || y < 0 || x >= COLUMNS * CELL_SIZE) return -1;
+		int index = (y / CELL_SIZE) * COLUMNS + x / CELL_SIZE;
+		return (index < viewSize) ? index : -1;
+	}
+
+	/*
+	 * Adds a PieceComponent back into its slot in the HolderPanel. A
+	 * PieceComponent that has never been in the HolderPanel gets a new slot.
+	 *
 	 * Parameters:
 	 * 		PieceComponent p = the PieceComponent being added to the HolderPanel
 	 */
 	public void addToPanel(PieceComponent p) {
-		pieceComps.add(p);
-		this.add(p);
-		this.repaint();
-		this.revalidate();
+		if (p.getOrder() >= slotOf.length || slots[slotOf[p.getOrder()]] != p) {
+			addSlot(p);
+		}
+		int slot = slotOf[p.getOrder()];
+		if (!present[slot]) {
+			present[slot] = true;
+			count++;
+		}
+		repaintPiece(p);
 	}
-	
+
 	/*
-	 * Removes a PieceComponent from the HolderPanel.
-	 * 
+	 * Removes a PieceComponent from the HolderPanel, leaving its slot empty.
+	 *
 	 * Parameters:
 	 * 		PieceComponent p = the PieceComponent to remove
 	 */
 	public void removeFromPanel(PieceComponent p) {
-		for (int i = 0; i < pieceComps.size(); i++) {
-			if (pieceComps.get(i).equals(p)) {
-				pieceComps.remove(i);
+		if (p.getOrder() >= slotOf.length) return;
+		int slot = slotOf[p.getOrder()];
+		if (slots[slot] == p && present[slot]) {
+			present[slot] = false;
+			count--;
+			repaintPiece(p);
+		}
+	}
+
+	/*
+	 * Repaints just the cell of a PieceComponent, if it is being shown.
+	 *
+	 * Parameters:
+	 * 		PieceComponent p = the PieceComponent to repaint
+	 */
+	public void repaintPiece(PieceComponent p) {
+		int index = indexOf[slotOf[p.getOrder()]];
+		if (index >= 0) {
+			repaint((index % COLUMNS) * CELL_SIZE, (index / COLUMNS) * CELL_SIZE, CELL_SIZE, CELL_SIZE);
+		}
+	}
+
+	/*
+	 * Highlights the PieceComponents of the given Placements, and 
+	 * un-highlights the rest. Only the cells that change get repainted.
+	 * 
+	 * Parameters:
+	 * 		List<Placement> placements = the Placements whose PieceComponents
+	 * 			should be highlighted (or null to highlight nothing)
+	 */
+	public void setHighlighted(List<Placement> placements) {
+		for (PieceComponent p : highlightedComps) {
+			highlighted[p.getOrder()] = false;
+			repaintPiece(p);
+		}
+		highlightedComps.clear();
+		if (placements == null) return;
+		for (Placement placement : placements) {
+			PieceComponent p = pieceComps.get(placement.getPiece());
+			if (p != null && !highlighted[p.getOrder()]) {
+				highlighted[p.getOrder()] = true;
+				highlightedComps.add(p);
+				repaintPiece(p);
 			}
 		}
-		this.remove(p);
-		this.repaint();
 	}
-	
+
+	/*
+	 * Makes a new slot at the end for a PieceComponent.
+	 */
+	private void addSlot(PieceComponent p) {
+		int slot = slots.length;
+		slots = Arrays.copyOf(slots, slot + 1);
+		present = Arrays.copyOf(present, slot + 1);
+		if (p.getOrder() >= slotOf.length) {
+			slotOf = Arrays.copyOf(slotOf, p.getOrder() + 1);
+			highlighted = Arrays.copyOf(highlighted, p.getOrder() + 1);
+		}
+		pieceComps.put(p.getPiece(), p);
+		slots[slot] = p;
+		slotOf[p.getOrder()] = slot;
+		updateView();
+	}
+
 	/*
 	 * Resets all the PieceComponents so that they all have 
 	 * an orientation of 0, their initial state.
 	 */
 	public void reset() {
-		for (PieceComponent pieceComp : HolderPanel.pieceComps) {
-			for (int i = pieceComp.getOrientation(); i < 4; i++) {
-				pieceComp.rotateClockwise();
+		for (int i = 0; i < slots.length; i++) {
+			if (present[i]) {
+				slots[i].setOrientation(0);
 			}
 		}
-		this.removeAll();
 		this.sort();
-		for (PieceComponent p : pieceComps) {
-			this.add(p);
-		}
-		this.revalidate();
-		this.repaint();
 	}
 	
 	/*
 	 * Sorts the PieceComponents in the HolderPanel based on their order number.
 	 */
 	public void sort() {
-		for (int fixedIndex = 0; fixedIndex < pieceComps.size(); fixedIndex++){
-			int smallestIndex = fixedIndex;
-			
-			for (int checkIndex = fixedIndex + 1; checkIndex < pieceComps.size(); checkIndex++){
-				if (pieceComps.get(smallestIndex).getOrder() != fixedIndex) {
-					smallestIndex = checkIndex;
-				}
+		sortSlots(new Comparator<PieceComponent>() {
+			public int compare(PieceComponent a, PieceComponent b) {
+				return Integer.compare(a.getOrder(), b.getOrder());
+			}
+		});
+	}
+
+	/*
+	 * Sorts the PieceComponents by their shape (see Piece.getSignature()),
+	 * so PieceComponents with the same Sides end up next to each other.
+	 */
+	public void sortBySignature() {
+		sortSlots(new Comparator<PieceComponent>() {
+			public int compare(PieceComponent a, PieceComponent b) {
+				return Integer.compare(a.getPiece().getSignature(), b.getPiece().getSignature());
 			}
-			PieceComponent temp = pieceComps.set(fixedIndex, pieceComps.get(smallestIndex));
-			pieceComps.set(smallestIndex, temp);
+		});
+	}
+
+	/*
+	 * Puts the slots in the order given by a Comparator, keeping 
+	 * track of which PieceComponents are in the HolderPanel.
+	 */
+	private void sortSlots(Comparator<PieceComponent> comparator) {
+		boolean[] wasPresent = new boolean[slotOf.length];
+		for (int i = 0; i < slots.length; i++) {
+			wasPresent[slots[i].getOrder()] = present[i];
 		}
+		Arrays.sort(slots, comparator);
+		for (int i = 0; i < slots.length; i++) {
+			present[i] = wasPresent[slots[i].getOrder()];
+		}
+		setSlots(slots, present);
 	}
 	
 	/*
 	 * Shuffles the order of the PieceComponents in the HolderPanel, 
-	 * and randomly rotates each one.
+	 * and randomly rotates each one. Every order is equally likely
+	 * (a Fisher-Yates shuffle).
 	 */
 	public void randomize() {
-		this.removeAll();
-		for (int i = 0; i < pieceComps.size(); i++) {
-			int randInt = (int)(Math.random() * pieceComps.size()) ;
-			PieceComponent temp = pieceComps.get(i);
-			int randRotation = (int)(Math.random() * 4);
-			for (int j = 0; j < randRotation; j++) {
-				temp.rotateClockwise();
+		for (int i = slots.length - 1; i >= 0; i--) {
+			int randInt = random.nextInt(i + 1);
+			PieceComponent temp = slots[i];
+			boolean tempPresent = present[i];
+			slots[i] = slots[randInt];
+			present[i] = present[randInt];
+			slots[randInt] = temp;
+			present[randInt] = tempPresent;
+			if (present[i]) {
+				slots[i].setOrientation(random.nextInt(4));
 			}
-			pieceComps.set(i, pieceComps.get(randInt));
-			pieceComps.set(randInt, temp);
 		}
-		for (PieceComponent p : pieceComps) {
-			this.add(p);
+		setSlots(slots, present);
+	}
+
+	/*
+	 * Replaces the slots with a new arrangement of them, and shows it.
+	 */
+	private void setSlots(PieceComponent[] newSlots, boolean[] newPresent) {
+		slots = newSlots;
+		present = newPresent;
+		for (int i = 0; i < slots.length; i++) {
+			slotOf[slots[i].getOrder()] = i;
+		}
+		updateView();
+	}
+
+	/*
+	 * Only shows the PieceComponents that have all of the given Sides
+	 * (a Side that is listed twice has to be on the piece twice).
+	 * Giving null or an empty List shows every PieceComponent again.
+	 *
+	 * Parameters:
+	 * 		List<Side> sides = the Sides the shown PieceComponents must have
+	 */
+	public void setFilter(List<Side> sides) {
+		filter = (sides == null || sides.isEmpty()) ? null : new ArrayList<Side>(sides);
+		updateView();
+	}
+
+	/*
+	 * Checks if a Piece has all of the Sides in the filter.
+	 */
+	private boolean passesFilter(Piece piece) {
+		if (filter == null) return true;
+		List<Side> sides = new ArrayList<Side>(4);
+		for (Direction d : Direction.values()) {
+			sides.add(piece.getSide(d));
+		}
+		for (Side side : filter) {
+			if (!sides.remove(side)) return false;
+		}
+		return true;
+	}
+
+	/*
+	 * Rebuilds the list of shown slots, and lays out and repaints
+	 * the HolderPanel, since the number of shown slots may change.
+	 */
+	private void updateView() {
+		view = new int[slots.length];
+		indexOf = new int[slots.length];
+		viewSize = 0;
+		for (int i = 0; i < slots.length; i++) {
+			indexOf[i] = -1;
+			if (passesFilter(slots[i].getPiece())) {
+				indexOf[i] = viewSize;
+				view[viewSize++] = i;
+			}
 		}
 		this.revalidate();
 		this.repaint();
 	}
-	
+
 	/*
 	 * Checks if the HolderPanel is full of PieceComponents.
-	 * 
+	 *
 	 * Returns:
 	 * 		boolean; true - the HolderPanel has all of the PieceComponents
 	 * 				 false - the HolderPanel is not full of the PieceComponents
 	 */
 	public boolean isFull() {
-		return (pieceComps.size() == 9);
+		return (count == slots.length);
 	}
 
 }
@@ -0,0 +1,309 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The purpose of this class is to solve a puzzle as a smaller puzzle made of macro-tiles
+ * The board is cut into 2x2 tiles. If it has an odd number of rows or columns, the last row or column of tiles is only
+ * 1 spot tall or wide (2x1, 1x2, or 1x1 in the corner), so every board can be cut up.
+ * An assembly is a way of putting different pieces in a tile so that they fit each other. The tiles are filled row by row,
+ * so when a tile is filled, the Side values its left and top neighbours show it (its profile) are already decided
+ * The assemblies that fit a profile are only found the first time a tile needs them, and kept by the shape of the tile
+ * and the profile, so the next tile that needs the same ones finds them with one lookup, instead of putting them together again.
+ * They are found without looking at which pieces are used, so they work anywhere on the board; each one is checked
+ * against the pieces already used when it is tried
+ * Only profiles the search really reaches are worked out, instead of every assembly of every piece, which grows far
+ * too fast: a 10x10 board already has more than 1 << 21 of them.
+ * A tile along the top or left of the board has no neighbour on one side, so it has too many assemblies to keep, and
+ * so does a profile with more than 1/256 of the limit (with 8 Side values, a 2x2 tile on a board of about 16x16 or more).
+ * Their assemblies are put together as they are tried instead, one at a time, skipping used pieces as they go.
+ * When more than the limit are kept in all, they are all forgotten and found again as needed
+ * The assemblies only depend on the pieces, so they are kept from one solve to the next as long as the EdgeTable is the same
+ */
+public class MacroTileSolver implements Solver {
+
+	//the most assemblies kept, by default
+	public static final int DEFAULT_MAX_ASSEMBLIES = 1 << 20;
+
+	//kept for a profile that has too many assemblies to keep
+	private static final int[] TOO_MANY = new int[0];
+
+	//the number of assemblies kept, at most
+	private int maxAssemblies;
+
+	private EdgeTable table;
+	private BooleanSupplier cancelled;
+	private long nodes;
+	private int rows;
+	private int cols;
+	private int words;
+
+	//the assemblies that fit every profile, by its key: the candidates of each one, row by row, one after another
+	private HashMap<Integer, int[]> assemblies;
+	//the number of assemblies kept
+	private int kept;
+
+	//the size of the board of macro-tiles
+	private int macroRows;
+	private int macroCols;
+	//the candidate at every spot
+	private int[] value;
+	//the pieces used on the board, the pieces used in the assembly being put together, and the pieces that are fixed somewhere
+	private long[] boardUsed;
+	private long[] tileUsed;
+	private long[] reserved;
+	//the one of boardUsed and tileUsed in use
+	private long[] used;
+	//true while assemblies are being found to be kept, instead of being tried on the board
+	private boolean keeping;
+	//the candidates left to try at every spot, while a tile's assemblies are put together
+	private long[][] remaining;
+
+	//Constructs a MacroTileSolver that keeps the default number of assemblies
+	public MacroTileSolver() {
+		this(DEFAULT_MAX_ASSEMBLIES);
+	}
+
+	//Constructs a MacroTileSolver that keeps at most maxAssemblies assemblies
+	public MacroTileSolver(int maxAssemblies) {
+		this.maxAssemblies = maxAssemblies;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	//returns the number of assemblies kept after the last solve
+	public int getAssemblies() {
+		return kept;
+	}
+
+	public int[] solve(EdgeTable table, BooleanSupplier cancelled) {
+		this.cancelled = cancelled;
+		this.nodes = 0;
+		if (table != this.table || assemblies == null) {
+			this.table = table;
+			assemblies = new HashMap<Integer, int[]>();
+			kept = 0;
+		}
+		rows = table.getRows();
+		cols = table.getCols();
+		words = table.getWords();
+		macroRows = (rows + 1) / 2;
+		macroCols = (cols + 1) / 2;
+		value = new int[table.getSpots()];
+		remaining = new long[table.getSpots()][words];
+		int pieceWords = (table.getPieceCount() + 63) / 64;
+		boardUsed = new long[pieceWords];
+		tileUsed = new long[pieceWords];
+		reserved = new long[pieceWords];
+		used = boardUsed;
+		keeping = false;
+		for (int spot = 0; spot < table.getSpots(); spot++) {
+			int fixed = table.getFixed(spot);
+			if (fixed >= 0)
+				reserved[fixed / 4 >>> 6] |= 1L << (fixed / 4);
+		}
+		return search(0) ? value.clone() : null;
+	}
+
+	//fills the tile, and the ones after it, row by row, returning true if the board was filled
+	private boolean search(int tile) {
+		if (tile == macroRows * macroCols) return true;
+		if (cancelled.getAsBoolean()) return false;
+		int places = getHeight(tile) * getWidth(tile);
+		int key = key(tile);
+		int[] found = assemblies.get(key);
+		if (found == null && (tile < macroCols || tile % macroCols == 0)) {
+			found = TOO_MANY;
+		} else if (found == null) {
+			found = keep(tile);
+			if (found == null) return false;
+			if (found != TOO_MANY && kept + found.length / places > maxAssemblies) {
+				assemblies.clear();
+				kept = 0;
+			}
+			assemblies.put(key, found);
+			if (found != TOO_MANY)
+				kept += found.length / places;
+		}
+
+		if (found == TOO_MANY) {
+			//the assemblies are put together one at a time, with the pieces of the board
+			int last = getSpot(tile, places - 1);
+			start(getSpot(tile, 0));
+			for (boolean more = next(tile, 0); more; more = next(tile, places - 1)) {
+				nodes++;
+				if (search(tile + 1)) return true;
+				unplace(last);
+			}
+			return false;
+		}
+		for (int i = 0; i < found.length; i += places) {
+			boolean fits = true;
+			for (int place = 0; place < places && fits; place++) {
+				fits = fits(found[i + place], getSpot(tile, place));
+			}
+			if (!fits) continue;
+			nodes++;
+			for (int place = 0; place < places; place++) {
+				place(getSpot(tile, place), found[i + place]);
+			}
+			if (search(tile + 1)) return true;
+			for (int place = 0; place < places; place++) {
+				unplace(getSpot(tile, place));
+			}
+		}
+		return false;
+	}
+
+	//Finds the assemblies of a tile that fit the profile its neighbours show it, with any pieces, to be kept
+	//Returns them, TOO_MANY if there are more than 1/256 of the most that can be kept, or null if the solver was cancelled
+	private int[] keep(int tile) {
+		int places = getHeight(tile) * getWidth(tile);
+		int limit = Math.max(1, maxAssemblies / 256);
+		int[] found = new int[places * 16];
+		int size = 0;
+		keeping = true;
+		used = tileUsed;
+		Arrays.fill(tileUsed, 0);
+		try {
+			start(getSpot(tile, 0));
+			for (boolean more = next(tile, 0); more; more = next(tile, places - 1)) {
+				if (size == limit * places) return TOO_MANY;
+				if (size + places > found.length)
+					found = Arrays.copyOf(found, found.length * 2);
+				for (int place = 0; place < places; place++) {
+					found[size++] = value[getSpot(tile, place)];
+				}
+				unplace(getSpot(tile, places - 1));
+			}
+			if (cancelled.getAsBoolean()) return null;
+		} finally {
+			keeping = false;
+			used = boardUsed;
+		}
+		return Arrays.copyOf(found, size);
+	}
+
+	//Puts together the next assembly of a tile, going on from a place in it whose candidates are already worked out
+	//Returns false if there are no more, or the solver was cancelled
+	private boolean next(int tile, int place) {
+		int places = getHeight(tile) * getWidth(tile);
+		while (place >= 0) {
+			if (cancelled.getAsBoolean()) return false;
+			int spot = getSpot(tile, place);
+			int candidate = take(spot);
+			if (candidate < 0) {
+				place--;
+				if (place >= 0)
+					unplace(getSpot(tile, place));
+				continue;
+			}
+			place(spot, candidate);
+			if (place + 1 == places) return true;
+			place++;
+			start(getSpot(tile, place));
+		}
+		return false;
+	}
+
+	//Works out the candidates that can go in a spot: the ones that fit next to the pieces above and to the left
+	//When assemblies are being kept, the pieces that are fixed are left out, since the assemblies have to work anywhere
+	private void start(int spot) {
+		long[] candidates = remaining[spot];
+		int fixed = keeping ? -1 : table.getFixed(spot);
+		Arrays.fill(candidates, 0);
+		if (fixed >= 0) {
+			candidates[fixed >>> 6] = 1L << fixed;
+		} else {
+			Arrays.fill(candidates, -1L);
+			int count = table.getPieceCount() * 4;
+			if ((count & 63) != 0)
+				candidates[words - 1] = (1L << count) - 1;
+		}
+		if (spot % cols > 0)
+			and(candidates, table.getFits(value[spot - 1], 1));
+		if (spot >= cols)
+			and(candidates, table.getFits(value[spot - cols], 2));
+	}
+
+	//Takes the next candidate to try at a spot out of the ones left, skipping ones whose piece can't go there
+	//Returns -1 if there are none left
+	private int take(int spot) {
+		long[] candidates = remaining[spot];
+		for (int w = 0; w < words; w++) {
+			while (candidates[w] != 0) {
+				int candidate = w * 64 + Long.numberOfTrailingZeros(candidates[w]);
+				candidates[w] &= candidates[w] - 1;
+				int piece = candidate / 4;
+				if (keeping ? (used[piece >>> 6] & (1L << piece)) == 0 : fits(candidate, spot))
+					return candidate;
+			}
+		}
+		return -1;
+	}
+
+	//returns true if a candidate can go at a spot on the board: its piece isn't used,
+	//and it is the candidate fixed there, or, if nothing is, its piece isn't fixed anywhere else
+	private boolean fits(int candidate, int spot) {
+		int piece = candidate / 4;
+		if ((boardUsed[piece >>> 6] & (1L << piece)) != 0) return false;
+		int fixed = table.getFixed(spot);
+		if (fixed >= 0) return candidate == fixed;
+		return (reserved[piece >>> 6] & (1L << piece)) == 0;
+	}
+
+	//puts a candidate at a spot
+	private void place(int spot, int candidate) {
+		value[spot] = candidate;
+		int piece = candidate / 4;
+		used[piece >>> 6] |= 1L << piece;
+	}
+
+	//takes the candidate at a spot back off
+	private void unplace(int spot) {
+		int piece = value[spot] / 4;
+		used[piece >>> 6] &= ~(1L << piece);
+	}
+
+	//returns the key of the profile a tile's neighbours show it, with the shape of the tile: 4 bits for each of the
+	//Side values to its left (top to bottom) and above it (left to right), each one 15 if there is nothing there
+	private int key(int tile) {
+		int height = getHeight(tile), width = getWidth(tile);
+		int spot = getSpot(tile, 0);
+		int key = ((height - 1) << 1) | (width - 1);
+		for (int i = 0; i < 2; i++) {
+			int side = (i < height && spot % cols > 0) ? table.getSide(value[spot + i * cols - 1], 1) + 4 : 15;
+			key = (key << 4) | side;
+		}
+		for (int i = 0; i < 2; i++) {
+			int side = (i < width && spot >= cols) ? table.getSide(value[spot - cols + i], 2) + 4 : 15;
+			key = (key << 4) | side;
+		}
+		return key;
+	}
+
+	//returns the number of rows in a tile: 2, or 1 for the last row of tiles of a board with an odd number of rows
+	private int getHeight(int tile) {
+		return Math.min(2, rows - tile / macroCols * 2);
+	}
+
+	//returns the number of columns in a tile: 2, or 1 for the last column of tiles of a board with an odd number of columns
+	private int getWidth(int tile) {
+		return Math.min(2, cols - tile % macroCols * 2);
+	}
+
+	//returns the spot of a place in a tile, counting row by row
+	private int getSpot(int tile, int place) {
+		int width = getWidth(tile);
+		return (tile / macroCols * 2 + place / width) * cols + tile % macroCols * 2 + place % width;
+	}
+
+	//ANDs a bitset into candidates
+	private void and(long[] candidates, long[] mask) {
+		for (int w = 0; w < words; w++) {
+			candidates[w] &= mask[w];
+		}
+	}
+}
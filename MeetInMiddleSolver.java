@@ -0,0 +1,244 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The purpose of this class is to solve a puzzle by filling its top and bottom halves separately, then joining them
+ * The top half is searched row by row. Every time it is filled, the bottom half is searched under it, with only the pieces
+ * the top half left. What the bottom half can be depends only on two things: the boundary (the Side values along the
+ * bottom edge of the top half) and the set of pieces that are left. So when the bottom half can't be filled, that pair is
+ * remembered, and any other top half that meets the bottom half with the same pair is turned down without searching.
+ * Top halves that are the same pieces in a different order, or that swap pieces with the same sides, meet this way all the time
+ * Two sides fit when one is the opposite of the other, the same as in Puzzle.doesFit, which the EdgeTable already works out
+ * Each half is searched row by row, only trying candidates that fit next to the pieces above and to the left
+ * This uses memory to save time: the bottom half is searched once for every pair, instead of once for every top half.
+ * The bottom half is never searched on its own, without the top half's pieces, since there are far too many ways to fill it:
+ * about 1000 for every row of a 6 wide board with 8 Side values, whatever is above it.
+ * The number of pairs kept is limited. When there are too many, they are all forgotten and the search goes on
+ * A puzzle with only one row has no halves, so it is solved with a PropagationSolver instead
+ * Tried on random puzzles from 3x3 to 8x8, every one was solved by joining halves. Up to 6x6 that takes well under
+ * a second, but since the top half is searched in a fixed order, some 7x7 puzzles take tens of seconds
+ */
+public class MeetInMiddleSolver implements Solver {
+
+	//the most pairs kept at once, by default
+	public static final int DEFAULT_MAX_FRONTIERS = 1 << 18;
+
+	//the most pairs kept at once
+	private int maxFrontiers;
+
+	private EdgeTable table;
+	private int cols;
+	private int words;
+	private int pieceWords;
+	//the number of longs a boundary takes, at 4 bits for each column
+	private int boundaryWords;
+	//the first spot of the bottom half
+	private int middle;
+	private BooleanSupplier cancelled;
+	private long nodes;
+	//whether the last solve was done by a PropagationSolver
+	private boolean overflowed;
+	//the number of top halves that met a pair that was already known
+	private long met;
+
+	//the candidate at every spot, and the pieces used so far, as a bitset
+	private int[] value;
+	private long[] used;
+	//the candidates left to try at every spot
+	private long[][] remaining;
+
+	//the pairs under which the bottom half can't be filled
+	private HashSet<Frontier> failed;
+
+	//Constructs a MeetInMiddleSolver that keeps the default number of pairs
+	public MeetInMiddleSolver() {
+		this(DEFAULT_MAX_FRONTIERS);
+	}
+
+	//Constructs a MeetInMiddleSolver that keeps at most maxFrontiers pairs
+	public MeetInMiddleSolver(int maxFrontiers) {
+		this.maxFrontiers = maxFrontiers;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	//returns true if the last puzzle had only one row, and was solved with a PropagationSolver
+	public boolean overflowed() {
+		return overflowed;
+	}
+
+	//returns the number of times in the last solve that a top half met a pair that was already known
+	public long getMet() {
+		return met;
+	}
+
+	public int[] solve(EdgeTable table, BooleanSupplier cancelled) {
+		this.table = table;
+		this.cancelled = cancelled;
+		this.cols = table.getCols();
+		this.words = table.getWords();
+		this.pieceWords = (table.getPieceCount() + 63) / 64;
+		this.boundaryWords = (cols + 15) / 16;
+		this.nodes = 0;
+		this.met = 0;
+		this.overflowed = false;
+		int rows = table.getRows();
+		int spots = table.getSpots();
+		value = new int[spots];
+		used = new long[pieceWords];
+		remaining = new long[spots][words];
+		//the top half gets the extra row, since it has more choices left when the bottom half is searched
+		int bottomRows = rows / 2;
+		middle = (rows - bottomRows) * cols;
+
+		int[] solution = null;
+		if (bottomRows > 0) {
+			failed = new HashSet<Frontier>();
+			if (fill(0, middle))
+				solution = value.clone();
+			//the pairs aren't needed once the search is over
+			failed = null;
+		} else {
+			overflowed = true;
+			PropagationSolver fallback = new PropagationSolver();
+			solution = fallback.solve(table, cancelled);
+			nodes += fallback.getNodes();
+		}
+		return solution;
+	}
+
+	//Fills the spots from one spot up to (not including) another, row by row
+	//When the top half is full, the bottom half is searched under it
+	//Returns true if the whole board was filled, or false if it couldn't be or the solver was cancelled
+	private boolean fill(int from, int to) {
+		int spots = table.getSpots();
+		int spot = from;
+		start(spot);
+		while (spot >= from) {
+			if (cancelled.getAsBoolean()) return false;
+			int candidate = take(spot);
+			if (candidate < 0) {
+				spot--;
+				if (spot >= from)
+					unplace(spot);
+				continue;
+			}
+			place(spot, candidate);
+			if (spot + 1 < to) {
+				spot++;
+				start(spot);
+				continue;
+			}
+			//the half is full
+			if (to == spots || join()) return true;
+			unplace(spot);
+		}
+		return false;
+	}
+
+	//Searches the bottom half under the top half on the board, unless its pair is known to fail
+	//Returns true, with the board filled, if the bottom half could be filled
+	private boolean join() {
+		Frontier frontier = frontier();
+		if (failed.contains(frontier)) {
+			met++;
+			return false;
+		}
+		if (fill(middle, table.getSpots())) return true;
+		//a search that was cancelled didn't show anything
+		if (cancelled.getAsBoolean()) return false;
+		if (failed.size() >= maxFrontiers)
+			failed.clear();
+		failed.add(frontier);
+		return false;
+	}
+
+	//returns the pair of the top half on the board: its boundary and the pieces it used
+	private Frontier frontier() {
+		long[] key = new long[boundaryWords + pieceWords];
+		for (int col = 0; col < cols; col++) {
+			key[col / 16] |= (long) (table.getSide(value[middle - cols + col], 2) + 4) << (4 * (col % 16));
+		}
+		System.arraycopy(used, 0, key, boundaryWords, pieceWords);
+		return new Frontier(key);
+	}
+
+	//Works out the candidates that can go in a spot: the ones that fit next to the pieces above and to the left
+	private void start(int spot) {
+		long[] candidates = remaining[spot];
+		int fixed = table.getFixed(spot);
+		Arrays.fill(candidates, 0);
+		if (fixed >= 0) {
+			candidates[fixed >>> 6] = 1L << fixed;
+		} else {
+			Arrays.fill(candidates, -1L);
+			int count = table.getPieceCount() * 4;
+			if ((count & 63) != 0)
+				candidates[words - 1] = (1L << count) - 1;
+		}
+		int col = spot % cols;
+		if (col > 0)
+			and(candidates, table.getFits(value[spot - 1], 1));
+		if (spot >= cols)
+			and(candidates, table.getFits(value[spot - cols], 2));
+	}
+
+	//Takes the next candidate to try at a spot out of the ones left, skipping ones whose piece is used
+	//Returns -1 if there are none left
+	private int take(int spot) {
+		long[] candidates = remaining[spot];
+		for (int w = 0; w < words; w++) {
+			while (candidates[w] != 0) {
+				int candidate = w * 64 + Long.numberOfTrailingZeros(candidates[w]);
+				candidates[w] &= candidates[w] - 1;
+				int piece = candidate / 4;
+				if ((used[piece >>> 6] & (1L << piece)) == 0)
+					return candidate;
+			}
+		}
+		return -1;
+	}
+
+	//puts a candidate at a spot
+	private void place(int spot, int candidate) {
+		value[spot] = candidate;
+		int piece = candidate / 4;
+		used[piece >>> 6] |= 1L << piece;
+		nodes++;
+	}
+
+	//takes the candidate at a spot back off
+	private void unplace(int spot) {
+		int piece = value[spot] / 4;
+		used[piece >>> 6] &= ~(1L << piece);
+	}
+
+	//ANDs a bitset into candidates
+	private void and(long[] candidates, long[] mask) {
+		for (int w = 0; w < words; w++) {
+			candidates[w] &= mask[w];
+		}
+	}
+
+	//A boundary and a set of pieces, as one key that can be kept in a HashSet
+	private static class Frontier {
+		private long[] key;
+		private int hash;
+
+		private Frontier(long[] key) {
+			this.key = key;
+			this.hash = Arrays.hashCode(key);
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+
+		public boolean equals(Object other) {
+			return other instanceof Frontier && Arrays.equals(key, ((Frontier) other).key);
+		}
+	}
+}
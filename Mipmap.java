@@ -0,0 +1,78 @@
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * Mipmap.java
+ *
+ * A Mipmap holds an image along with copies of it that are
+ * downsampled by half, then by half again, down to a single
+ * pixel. When an image is drawn much smaller than its actual
+ * size, drawing from the closest smaller copy is both faster
+ * and better looking than scaling the full image every time.
+ *
+ * The smaller copies are only made the first time they are needed.
+ */
+public class Mipmap {
+
+	private BufferedImage[] levels;
+
+	/*
+	 * Constructs a Mipmap from a full size image.
+	 *
+	 * Parameters:
+	 * 		BufferedImage source = the full size image
+	 */
+	public Mipmap(BufferedImage source) {
+		int count = 1;
+		for (int size = Math.max(source.getWidth(), source.getHeight()); size > 1; size /= 2) {
+			count++;
+		}
+		levels = new BufferedImage[count];
+		levels[0] = source;
+	}
+
+	/*
+	 * Gets the smallest copy of the image that is still at least
+	 * as big as the size it is going to be drawn at.
+	 *
+	 * Parameters:
+	 * 		int size = the width (in pixels) the image will be drawn at
+	 *
+	 * Returns:
+	 * 		BufferedImage; the copy of the image to draw from
+	 */
+	public BufferedImage getLevel(int size) {
+		int level = 0;
+		while (level < levels.length - 1 && levels[0].getWidth() >> (level + 1) >= size) {
+			level++;
+		}
+		for (int i = 1; i <= level; i++) {
+			if (levels[i] == null) {
+				levels[i] = downsample(levels[i - 1]);
+			}
+		}
+		return levels[level];
+	}
+
+	/*
+	 * Makes a copy of an image at half of its width and height.
+	 *
+	 * Parameters:
+	 * 		BufferedImage image = the image to downsample
+	 *
+	 * Returns:
+	 * 		BufferedImage; the half size copy
+	 */
+	private static BufferedImage downsample(BufferedImage image) {
+		int width = Math.max(1, image.getWidth() / 2);
+		int height = Math.max(1, image.getHeight() / 2);
+		BufferedImage half = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2 = half.createGraphics();
+		g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g2.drawImage(image, 0, 0, width, height, null);
+		g2.dispose();
+		return half;
+	}
+
+}
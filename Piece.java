@@ -11,6 +11,8 @@ public class Piece {
 	private Side[] sides = new Side[4];
 	//the orientation stores how many 90 degree turns from the assigned value the Piece is at.
 	private int orientation;
+	//the id is a number that stays with the Piece, used to find things that belong to it. -1 means it has no id yet
+	private int id = -1;
 /*
  * This constructor creates a Piece by assigning the four sides of the piece different Side types from the enum list.
  * Parameters: Side top, Side right, Side bottom, Side left are the four side types which will be assigned to the direction as given by their name.
@@ -23,6 +25,11 @@ public class Piece {
 		sides[3] = left;
 
 	}
+	//Creates a Piece with an id
+	public Piece(int id, Side top, Side right, Side bottom, Side left) {
+		this(top, right, bottom, left);
+		this.id = id;
+	}
 	//rotates piece 90 degrees clockwise
 	public void rotateClockwise() {
 		Side temp = sides[sides.length - 1];
@@ -42,21 +49,74 @@ public class Piece {
 		sides[sides.length - 1] = temp;
 		orientation = (orientation + 3) % 4;
 	}
+	//turns the piece clockwise until it is at the given orientation
+	//Any int is turned into 0 to 3 first, so -1 is the same as 3
+	public void setOrientation(int orientation) {
+		orientation = Math.floorMod(orientation, 4);
+		while (this.orientation != orientation) {
+			rotateClockwise();
+		}
+	}
 	//returns the chosen side
 	public Side getSide(Direction direction) {
 		return sides[direction.getValue()];
 	}
+	//returns the side that would be in the chosen direction if the piece were turned to the
+	//given orientation, without turning it
+	public Side getSide(Direction direction, int orientation) {
+		return sides[(direction.getValue() - orientation + this.orientation + 8) % 4];
+	}
 	// Returns number of 90 degree clockwise turns from original state
 	public int getOrientation() {
 		return orientation;
 	}
+	// Returns a new piece with the same sides, orientation and id, that can be turned
+	// and placed without changing this one
+	public Piece copy() {
+		Piece copy = new Piece(id, getSide(Direction.TOP, 0), getSide(Direction.RIGHT, 0),
+				getSide(Direction.BOTTOM, 0), getSide(Direction.LEFT, 0));
+		copy.setOrientation(orientation);
+		return copy;
+	}
+	// Returns the four sides the piece would have if it were turned to the given orientation, as one number.
+	// The sides go clockwise from the top, and two pieces turned to the same sides give the same number
+	public int getPackedSides(int orientation) {
+		int packed = 0;
+		for (int i = 0; i < 4; i++) {
+			// side values run from -4 to 4, so each one fits in 4 bits
+			packed = (packed << 4) | (sides[(i - orientation + this.orientation + 8) % 4].getValue() + 8);
+		}
+		return packed;
+	}
+	// Returns the id of the piece, or -1 if it has none
+	public int getId() {
+		return id;
+	}
+	// Gives the piece an id
+	public void setId(int id) {
+		this.id = id;
+	}
+	// Returns a number made from the four sides that stays the same when the piece is rotated.
+	// Two pieces have the same signature exactly when one is a rotation of the other.
+	public int getSignature() {
+		int signature = Integer.MAX_VALUE;
+		for (int start = 0; start < 4; start++) {
+			int rotated = 0;
+			for (int i = 0; i < 4; i++) {
+				// side values run from -4 to 4, so each one fits in 4 bits
+				rotated = (rotated << 4) | (sides[(start + i) % 4].getValue() + 8);
+			}
+			signature = Math.min(signature, rotated);
+		}
+		return signature;
+	}
 	// toString to print out a piece object. The method prints out each side and its orientation
 	public String toString () {
+		StringBuilder text = new StringBuilder();
 		for(Side b: sides) 
-			System.out.println(b + " ");
-			System.out.println("Orientation = " + orientation);
-		
-		return "";
+			text.append(b).append(' ');
+		text.append("Orientation = ").append(orientation);
+		return text.toString();
 	}
 
 	/*
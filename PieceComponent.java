@@ -1,9 +1,8 @@
 
 import java.awt.Graphics;
-import java.awt.Image;
-import java.awt.Toolkit;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
-import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -21,6 +20,10 @@ import javax.swing.JLabel;
  * because the visual may not always line up with its Piece
  * object's orientation. 
  * 
+ * Rotating or scaling a PieceComponent only changes its orientation
+ * and size. The image itself is never changed; it is turned and 
+ * scaled when it gets drawn.
+ * 
  * Finally, each PieceComponent has an order number, used when 
  * sorting multiple PieceComponents. The order number is obtained 
  * from looking at the order of the images in the resources file.
@@ -35,7 +38,7 @@ public class PieceComponent extends JLabel{
 
 	private Piece piece;
 	private BufferedImage buffImage;
-	private Image image;
+	private Mipmap mipmap;
 	private int currentScale = 121;
 	private int orientation;
 	private int order;
@@ -53,7 +56,6 @@ public class PieceComponent extends JLabel{
 	public PieceComponent(String imageFile, Piece piece, int order) {
 		try {
 		    this.buffImage = ImageIO.read(new File(imageFile));
-		    this.image = buffImage;
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -69,7 +71,29 @@ public class PieceComponent extends JLabel{
 	 * 		Graphics g = the Graphics object used
 	 */
 	public void paint(Graphics g) {
-		g.drawImage(this.image,0,0,null);
+		Graphics2D g2 = (Graphics2D) g;
+		g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		drawImage(g2, 0, 0, currentScale);
+	}
+	
+	/*
+	 * Draws the image of the PieceComponent, turned to its orientation,
+	 * in a square anywhere on a Graphics object. This is also used by the 
+	 * BoardComponent and HolderPanel to draw PieceComponents that are
+	 * on them.
+	 * 
+	 * Parameters:
+	 * 		Graphics2D g2 = the Graphics object used
+	 * 		int x = the x coordinate of the top left corner
+	 * 		int y = the y coordinate of the top left corner
+	 * 		int size = the width (and height) to draw the image at
+	 */
+	public void drawImage(Graphics2D g2, int x, int y, int size) {
+		if (getMipmap() == null) return;
+		AffineTransform transform = g2.getTransform();
+		g2.rotate(orientation * Math.PI / 2, x + size / 2.0, y + size / 2.0);
+		g2.drawImage(mipmap.getLevel(size), x, y, size, size, null);
+		g2.setTransform(transform);
 	}
 	
 	/*
@@ -93,15 +117,7 @@ public class PieceComponent extends JLabel{
 	 */
 	public void rotateGraphicsClockwise() {
 		orientation = (orientation + 1) % 4;
-		AffineTransform tx = new AffineTransform();
-	    tx.rotate(Math.PI / 2, this.buffImage.getWidth() / 2, this.buffImage.getHeight() / 2);
-
-	    AffineTransformOp op = new AffineTransformOp(tx,
-	        AffineTransformOp.TYPE_BILINEAR);
-	    this.buffImage = op.filter(this.buffImage, null);
-	    image = Toolkit.getDefaultToolkit().createImage(buffImage.getSource());
-	    scaleImage(currentScale);
-	    this.repaint();
+		this.repaint();
 	}
 	
 	/*
@@ -109,15 +125,31 @@ public class PieceComponent extends JLabel{
 	 */
 	public void rotateGraphicsCounterClockwise() {
 		orientation = (orientation + 3) % 4;
-		AffineTransform tx = new AffineTransform();
-	    tx.rotate(-Math.PI / 2, this.buffImage.getWidth() / 2, this.buffImage.getHeight() / 2);
-
-	    AffineTransformOp op = new AffineTransformOp(tx,
-	        AffineTransformOp.TYPE_BILINEAR);
-	    this.buffImage = op.filter(this.buffImage, null);
-	    image = Toolkit.getDefaultToolkit().createImage(buffImage.getSource());
-	    scaleImage(currentScale);
-	    this.repaint();
+		this.repaint();
+	}
+	
+	/*
+	 * Turns just the PieceComponent's graphics to an orientation, 
+	 * without repainting.
+	 * 
+	 * Parameters:
+	 * 		int orientation = the orientation (0 to 3) to turn to
+	 */
+	public void setGraphicsOrientation(int orientation) {
+		this.orientation = orientation;
+	}
+	
+	/*
+	 * Turns the PieceComponent and its Piece to an orientation. Nothing
+	 * gets repainted, so many PieceComponents can be turned at once, 
+	 * and then repainted together.
+	 * 
+	 * Parameters:
+	 * 		int orientation = the orientation (0 to 3) to turn to
+	 */
+	public void setOrientation(int orientation) {
+		piece.setOrientation(orientation);
+		this.orientation = orientation;
 	}
 	
 	/*
@@ -130,6 +162,20 @@ public class PieceComponent extends JLabel{
 		return this.piece;
 	}
 	
+	/*
+	 * Gets the Mipmap of the PieceComponent's image (not turned), used 
+	 * to draw the PieceComponent at any size (like on a zoomed out board).
+	 * 
+	 * Returns:
+	 * 		Mipmap; the Mipmap of the image, or null if there is no image
+	 */
+	public Mipmap getMipmap() {
+		if (mipmap == null && buffImage != null) {
+			mipmap = new Mipmap(buffImage);
+		}
+		return mipmap;
+	}
+	
 	/*
 	 * Scales the PieceComponent's image based on the parameter given.
 	 * 
@@ -139,7 +185,6 @@ public class PieceComponent extends JLabel{
 	public void scaleImage(int n) {
 		this.currentScale = n;
 		this.setSize(n, n);
-		image = image.getScaledInstance(n,n,Image.SCALE_REPLICATE);
 	}
 	
 	/*
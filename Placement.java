@@ -0,0 +1,48 @@
+/**
+ * The purpose of this class is to describe one way of putting a piece on the board
+ * It holds the piece, the orientation the piece has to be turned to, and the location
+ * It only describes the move, so making one does not change the piece or the board
+ */
+public class Placement {
+
+	//the piece being placed
+	private Piece piece;
+	//the orientation (number of 90 degree clockwise turns from the assigned sides) the piece is placed at
+	private int orientation;
+	//the location the piece is placed at
+	private int row;
+	private int col;
+
+	//Constructs a Placement of a piece turned to an orientation at a location
+	public Placement(Piece piece, int orientation, int row, int col) {
+		this.piece = piece;
+		this.orientation = orientation;
+		this.row = row;
+		this.col = col;
+	}
+
+	//returns the piece being placed
+	public Piece getPiece() {
+		return piece;
+	}
+
+	//returns the orientation the piece is placed at
+	public int getOrientation() {
+		return orientation;
+	}
+
+	//returns the row the piece is placed at
+	public int getRow() {
+		return row;
+	}
+
+	//returns the column the piece is placed at
+	public int getCol() {
+		return col;
+	}
+
+	// toString to print out a placement, like "(1, 2) turned 3"
+	public String toString() {
+		return "(" + row + ", " + col + ") turned " + orientation;
+	}
+}
@@ -0,0 +1,134 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The purpose of this class is to race several Solvers on the same puzzle, and answer with whichever finishes first
+ * No one way of searching is fastest on every puzzle, but a puzzle that takes one of them a very long time
+ * is often quick for another, so racing a few different ones keeps the slowest puzzles from taking so long
+ * Every Solver runs on its own thread with its own search state, reading the same EdgeTable, which never changes
+ * As soon as one of them finds a solution the others are cancelled, and they stop the next time they check
+ * If a Solver finds there is no solution, that is the answer too, since every Solver searches the whole puzzle
+ */
+public class PortfolioSolver implements Solver {
+
+	//the threads the Solvers run on, shared by every PortfolioSolver. They don't keep the program running
+	private static final ExecutorService THREADS = Executors.newCachedThreadPool(new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "PortfolioSolver");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private List<Solver> solvers;
+	//the Solver that answered the last solve, or null
+	private Solver winner;
+	private long nodes;
+
+	//Constructs a PortfolioSolver that races the given Solvers. Each one must be a different object
+	public PortfolioSolver(List<Solver> solvers) {
+		this.solvers = new ArrayList<Solver>(solvers);
+	}
+
+	//Constructs a PortfolioSolver that races the default Solvers: the smallest domain first, row by row with backjumping,
+	//and, for each seed, the smallest domain first with the candidates tried in a random order, and row by row with restarts
+	public static PortfolioSolver newDefault(int seeds) {
+		List<Solver> solvers = new ArrayList<Solver>(Arrays.asList(new PropagationSolver(), new BackjumpSolver()));
+		for (int seed = 1; seed <= seeds; seed++) {
+			solvers.add(new PropagationSolver(seed));
+			solvers.add(new RestartSolver(seed));
+		}
+		return new PortfolioSolver(solvers);
+	}
+
+	//returns the number of Solvers raced, which is how many threads a solve keeps busy
+	public int getWidth() {
+		return solvers.size();
+	}
+
+	//returns the number of pieces placed by all of the Solvers during the last solve
+	public long getNodes() {
+		return nodes;
+	}
+
+	//returns the Solver whose answer the last solve gave, or null if they were all cancelled
+	public Solver getWinner() {
+		return winner;
+	}
+
+	//Runs every Solver at once, and returns the first answer, after the rest have stopped
+	//If this thread is interrupted while waiting, the Solvers are cancelled, null is returned, and the thread stays interrupted
+	public int[] solve(final EdgeTable table, final BooleanSupplier cancelled) {
+		winner = null;
+		nodes = 0;
+		final AtomicBoolean finished = new AtomicBoolean();
+		final BooleanSupplier stop = new BooleanSupplier() {
+			public boolean getAsBoolean() {
+				return finished.get() || cancelled.getAsBoolean();
+			}
+		};
+		CompletionService<Solver> race = new ExecutorCompletionService<Solver>(THREADS);
+		List<Future<Solver>> running = new ArrayList<Future<Solver>>();
+		final int[][] answers = new int[solvers.size()][];
+		for (int i = 0; i < solvers.size(); i++) {
+			final Solver solver = solvers.get(i);
+			final int index = i;
+			running.add(race.submit(new Callable<Solver>() {
+				public Solver call() {
+					answers[index] = solver.solve(table, stop);
+					return solver;
+				}
+			}));
+		}
+
+		int[] answer = null;
+		boolean interrupted = false;
+		try {
+			for (int left = solvers.size(); left > 0 && winner == null; left--) {
+				Solver done = race.take().get();
+				int index = solvers.indexOf(done);
+				//null is only an answer if the Solver wasn't cancelled
+				if (answers[index] != null || !stop.getAsBoolean()) {
+					winner = done;
+					answer = answers[index];
+				}
+			}
+		} catch (InterruptedException e) {
+			interrupted = true;
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			finished.set(true);
+			//waits for the others to stop, so they can be used again
+			for (Future<Solver> future : running) {
+				while (true) {
+					try {
+						future.get();
+						break;
+					} catch (InterruptedException e) {
+						interrupted = true;
+					} catch (ExecutionException e) {
+						break;
+					}
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+		for (Solver solver : solvers) {
+			nodes += solver.getNodes();
+		}
+		return answer;
+	}
+}
@@ -0,0 +1,280 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The purpose of this class is to solve puzzles by keeping track of what can still go in every spot
+ * Every spot has a domain: a bitset of the candidates (piece * 4 + orientation) that can still go there
+ * When a candidate is placed, the domains of its neighbors are ANDed with the candidates that fit next to it,
+ * and every rotation of its piece is taken out of the free candidates, since a piece can only be used once.
+ * What can go in a spot is its domain ANDed with the free candidates, so a placement only has to touch its neighbors
+ * As soon as any domain is empty the placement is a dead end, without waiting for the search to reach that spot
+ * The spot with the smallest domain is always filled next
+ * There is only one copy of the domains. Every word a placement changes is written to a trail with its old value,
+ * so going back is undoing the trail to where it was before the placement, and the memory grows with the changes, not the board
+ * The search keeps its levels on a stack of its own, so a big board can't overflow the call stack
+ * The candidates for a spot are tried in order, unless the solver has a seed, in which case they are tried in a random order,
+ * so that solvers with different seeds search the same puzzle differently
+ */
+public class PropagationSolver implements Solver {
+
+	//the puzzle being solved
+	private EdgeTable table;
+	private int spots;
+	private int words;
+	//the domain of every spot, spot * words + word, and then the free candidates, the ones whose piece isn't placed yet
+	private long[] domains;
+	private int free;
+	//the number of pieces not placed yet
+	private int freePieces;
+	//the candidate placed at every spot, or -1
+	private int[] placed;
+	//the spots with nothing placed, and where each one is in that list. A placed spot is swapped to just past the end,
+	//and spots are taken back off in the opposite order, so taking one back off is just making the list one longer
+	private int[] unplaced;
+	private int[] position;
+	private int unplacedCount;
+	//the words changed by placements, and their old values, so they can be put back
+	private int[] trailIndex;
+	private long[] trailValue;
+	private int trailSize;
+	//each level of the search: the spot being filled, how long the trail was before it, and its candidates,
+	//which are kept one level after another in candidates, from start up to end, with next the one to try next
+	private int[] levelSpot;
+	private int[] levelMark;
+	private int[] levelStart;
+	private int[] levelNext;
+	private int[] levelEnd;
+	private int[] candidates;
+	private BooleanSupplier cancelled;
+	private long nodes;
+	//the order the candidates are tried in is random if this isn't null
+	private Random random;
+	private long seed;
+
+	//Constructs a PropagationSolver that tries candidates in order
+	public PropagationSolver() {
+	}
+
+	//Constructs a PropagationSolver that tries candidates in a random order, the same every solve for the same seed
+	public PropagationSolver(long seed) {
+		this.random = new Random();
+		this.seed = seed;
+	}
+
+	public int[] solve(EdgeTable table, BooleanSupplier cancelled) {
+		this.table = table;
+		this.cancelled = cancelled;
+		this.spots = table.getSpots();
+		this.words = table.getWords();
+		this.nodes = 0;
+		if (random != null)
+			random.setSeed(seed);
+		free = spots * words;
+		domains = new long[(spots + 1) * words];
+		placed = new int[spots];
+		unplaced = new int[spots];
+		position = new int[spots];
+		trailIndex = new int[1024];
+		trailValue = new long[1024];
+		trailSize = 0;
+		levelSpot = new int[spots + 1];
+		levelMark = new int[spots + 1];
+		levelStart = new int[spots + 1];
+		levelNext = new int[spots + 1];
+		levelEnd = new int[spots + 1];
+		candidates = new int[1024];
+
+		//every spot starts with every candidate, then the fixed spots are placed
+		int count = table.getPieceCount() * 4;
+		for (int spot = 0; spot <= spots; spot++) {
+			for (int c = 0; c < count; c++) {
+				domains[spot * words + (c >>> 6)] |= 1L << c;
+			}
+		}
+		freePieces = table.getPieceCount();
+		Arrays.fill(placed, -1);
+		for (int spot = 0; spot < spots; spot++) {
+			unplaced[spot] = spot;
+			position[spot] = spot;
+		}
+		unplacedCount = spots;
+		for (int spot = 0; spot < spots; spot++) {
+			int candidate = table.getFixed(spot);
+			if (candidate < 0) continue;
+			if (!has(spot, candidate) || !place(spot, candidate))
+				return null;
+		}
+		return search() ? placed.clone() : null;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	//fills the rest of the board, returning true if it was filled
+	private boolean search() {
+		int level = -1;
+		boolean forward = true;
+		while (true) {
+			if (forward) {
+				if (cancelled.getAsBoolean()) return false;
+				int best = smallest();
+				if (best == -1) return true;
+				level++;
+				levelSpot[level] = best;
+				levelMark[level] = trailSize;
+				levelStart[level] = (level == 0) ? 0 : levelEnd[level - 1];
+				levelNext[level] = levelStart[level];
+				levelEnd[level] = (best < 0) ? levelStart[level] : addCandidates(best, levelStart[level]);
+			}
+			int spot = levelSpot[level];
+			boolean deeper = false;
+			while (levelNext[level] < levelEnd[level]) {
+				int candidate = candidates[levelNext[level]++];
+				nodes++;
+				if (place(spot, candidate)) {
+					deeper = true;
+					break;
+				}
+				undo(levelMark[level]);
+				unplace(spot);
+			}
+			if (deeper) {
+				forward = true;
+				continue;
+			}
+			//every candidate here was a dead end, so the one placed a level up comes back off
+			if (--level < 0) return false;
+			undo(levelMark[level]);
+			unplace(levelSpot[level]);
+			forward = false;
+		}
+	}
+
+	//returns the empty spot with the smallest domain (the first one, if several are the smallest),
+	//-2 if some empty spot has nothing that can go there, or -1 if the board is full
+	//A spot with no placed neighbor still has every candidate in its domain, so only the free ones need counting
+	private int smallest() {
+		int best = -1, bestSize = Integer.MAX_VALUE;
+		for (int i = 0; i < unplacedCount; i++) {
+			int spot = unplaced[i];
+			int size = hasPlacedNeighbor(spot) ? size(spot) : freePieces * 4;
+			if (size == 0) return -2;
+			if (size < bestSize || (size == bestSize && spot < best)) {
+				best = spot;
+				bestSize = size;
+			}
+		}
+		return best;
+	}
+
+	//Puts the candidates that can go in a spot into candidates from start, in order, or in a random order if there is a seed
+	//Returns where they end
+	private int addCandidates(int spot, int start) {
+		int end = start;
+		int base = spot * words;
+		for (int w = 0; w < words; w++) {
+			long bits = domains[base + w] & domains[free + w];
+			while (bits != 0) {
+				if (end == candidates.length)
+					candidates = Arrays.copyOf(candidates, end * 2);
+				candidates[end++] = w * 64 + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+			}
+		}
+		if (random != null) {
+			for (int i = end - 1; i > start; i--) {
+				int j = start + random.nextInt(i - start + 1);
+				int swap = candidates[i];
+				candidates[i] = candidates[j];
+				candidates[j] = swap;
+			}
+		}
+		return end;
+	}
+
+	//Places a candidate at a spot, narrowing the domains of its neighbors and taking its piece out of the free candidates
+	//Returns false if a neighbor has nothing left that can go there. Either way, undo and unplace take it back
+	private boolean place(int spot, int candidate) {
+		placed[spot] = candidate;
+		int last = unplaced[--unplacedCount];
+		unplaced[position[spot]] = last;
+		position[last] = position[spot];
+		unplaced[unplacedCount] = spot;
+		position[spot] = unplacedCount;
+		freePieces--;
+		//the 4 candidates of a piece are always in the same word
+		int word = free + (candidate >>> 6);
+		set(word, domains[word] & ~(0xfL << (candidate & ~3 & 63)));
+		boolean alive = true;
+		for (int d = 0; d < 4; d++) {
+			int neighbor = table.getNeighbor(spot, d);
+			if (neighbor < 0 || placed[neighbor] >= 0) continue;
+			long[] fits = table.getFits(candidate, d);
+			int base = neighbor * words;
+			long any = 0;
+			for (int w = 0; w < words; w++) {
+				long narrowed = domains[base + w] & fits[w];
+				if (narrowed != domains[base + w])
+					set(base + w, narrowed);
+				any |= narrowed & domains[free + w];
+			}
+			if (any == 0)
+				alive = false;
+		}
+		return alive;
+	}
+
+	//takes the candidate at a spot back off, once the trail has been undone to before it was placed
+	private void unplace(int spot) {
+		placed[spot] = -1;
+		freePieces++;
+		//the spot is the last placed one, so it is at the end of the list, just past the spots still empty
+		unplacedCount++;
+	}
+
+	//changes a word of the domains, writing its old value to the trail
+	private void set(int index, long value) {
+		if (trailSize == trailIndex.length) {
+			trailIndex = Arrays.copyOf(trailIndex, trailSize * 2);
+			trailValue = Arrays.copyOf(trailValue, trailSize * 2);
+		}
+		trailIndex[trailSize] = index;
+		trailValue[trailSize++] = domains[index];
+		domains[index] = value;
+	}
+
+	//puts back every word changed since the trail was mark long
+	private void undo(int mark) {
+		while (trailSize > mark) {
+			trailSize--;
+			domains[trailIndex[trailSize]] = trailValue[trailSize];
+		}
+	}
+
+	//returns true if a spot has a placed neighbor
+	private boolean hasPlacedNeighbor(int spot) {
+		for (int d = 0; d < 4; d++) {
+			int neighbor = table.getNeighbor(spot, d);
+			if (neighbor >= 0 && placed[neighbor] >= 0) return true;
+		}
+		return false;
+	}
+
+	//returns true if a candidate can go in a spot
+	private boolean has(int spot, int candidate) {
+		int w = candidate >>> 6;
+		return (domains[spot * words + w] & domains[free + w] & (1L << candidate)) != 0;
+	}
+
+	//returns the number of candidates that can go in a spot
+	private int size(int spot) {
+		int size = 0;
+		int base = spot * words;
+		for (int w = 0; w < words; w++) {
+			size += Long.bitCount(domains[base + w] & domains[free + w]);
+		}
+		return size;
+	}
+}
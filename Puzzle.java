@@ -13,23 +13,66 @@ public class Puzzle {
 	private Board board;
 	//The ArrayList holds the unused pieces in that are needed to solve the puzzle.
 	private ArrayList<Piece> pieces = new ArrayList<Piece>();
+	//The EdgeIndex holds the sides of the unused pieces, to quickly find the ones that fit somewhere
+	private EdgeIndex index = new EdgeIndex();
+	//The SolveListener gets told about every move the solver makes, or is null
+	private SolveListener solveListener;
 	
 
+	// Pieces without an id are given their index in the list as their id
 	public Puzzle(int rows, int cols, List<Piece> pieceList) {
 		board = new Board(rows, cols);
 		if (pieceList instanceof ArrayList) {
 			for (Piece p : pieceList) {
+				if (p.getId() < 0)
+					p.setId(pieces.size());
 				pieces.add(p);
+				index.add(p);
 			}
 
 		}
 	}
 
+	// Creates a puzzle with pieces already on the board. The pieces in pieceList are the unused ones,
+	// and placed has a piece for every spot, row by row, or null for an empty spot, turned the way it goes there.
+	// This is much faster than calling setPiece for every placed piece, which has to find it in the unused list
+	public Puzzle(int rows, int cols, List<Piece> pieceList, Piece[] placed) {
+		this(rows, cols, pieceList);
+		for (int spot = 0; spot < placed.length; spot++) {
+			if (placed[spot] != null)
+				board.setPiece(placed[spot], spot / cols, spot % cols);
+		}
+	}
+
 	// Creates a square puzzle with the given list of pieces
 	public Puzzle(int size, List<Piece> pieces) {
 		this(size, size, pieces);
 	}
 
+	// Returns a copy of the puzzle, with copies of all of its pieces placed the same way.
+	// The copy can be changed or solved (even on another thread) without changing this puzzle.
+	public Puzzle copy() {
+		ArrayList<Piece> copies = new ArrayList<Piece>();
+		for (Piece p : pieces) {
+			copies.add(p.copy());
+		}
+		for (int i = 0; i < board.getRows(); i++) {
+			for (int j = 0; j < board.getCols(); j++) {
+				if (board.getPiece(i, j) != null)
+					copies.add(board.getPiece(i, j).copy());
+			}
+		}
+		Puzzle copy = new Puzzle(board.getRows(), board.getCols(), copies);
+		int k = pieces.size();
+		for (int i = 0; i < board.getRows(); i++) {
+			for (int j = 0; j < board.getCols(); j++) {
+				if (board.getPiece(i, j) != null)
+					copy.setPiece(copies.get(k++), i, j);
+			}
+		}
+		return copy;
+	}
+
 	// Determines whether the puzzle has been completed
 	public boolean isSolved() {
 		for (int i = 0; i < board.getRows(); i++) {
@@ -76,7 +119,9 @@ public class Puzzle {
 		for (int i = 0; i < board.getRows(); i++) {
 			for (int j = 0; j < board.getCols(); j++) {
 				if (board.getPiece(i, j) != null) {
-					pieces.add(board.removePiece(i, j));
+					Piece p = board.removePiece(i, j);
+					pieces.add(p);
+					index.add(p);
 				}
 
 			}
@@ -86,8 +131,10 @@ public class Puzzle {
 	//Clears the board and puts all pieces back into the piece list
 	public Piece removePiece(int row, int col) {
 		Piece p = board.removePiece(row, col);
-		if(p != null)
+		if(p != null) {
 			pieces.add(p);
+			index.add(p);
+		}
 		return p;
 	}
 
@@ -96,6 +143,15 @@ public class Puzzle {
 		return pieces;
 	}
 
+	// returns every unused piece, with every orientation of it, that fits at the specified
+	// location. The location must be empty. The answer comes from the EdgeIndex, so only the
+	// pieces with a side that matches a neighbor get looked at.
+	public List<Placement> getFits(int row, int col) {
+		if (!board.isValid(row, col) || board.isOccupied(row, col))
+			return new ArrayList<Placement>();
+		return index.getFits(board, row, col);
+	}
+
 	// returns the number of rows
 	public int getRows() {
 		return board.getRows();
@@ -113,34 +169,125 @@ public class Puzzle {
 	public void setPiece(Piece piece, int row, int col) {
 		board.setPiece(piece, row, col);
 		pieces.remove(piece);
+		index.remove(piece);
 	}
 
 	
-	//Fills the puzzle with the correct solution
+	//Sets the SolveListener that is told about every move solve() makes, or null for none
+	public void setSolveListener(SolveListener solveListener) {
+		this.solveListener = solveListener;
+	}
 
+	//Fills the puzzle with the correct solution
+	//If the thread is interrupted, the search stops early and the puzzle is left unsolved
 	public void solve() {
 		reset();
 		solve(0, 0 ,0);
 	}
+	//Fills the empty spots of the board, without moving the pieces that are already placed
+	//Returns true if the board was completed. If not, the board is left the way it was
+	//The empty spot with the fewest pieces that fit is always filled next, so dead ends are found early
+	//If the thread is interrupted, the search stops early and false is returned
+	public boolean complete() {
+		if (Thread.currentThread().isInterrupted()) return false;
+		List<Placement> fits = getMostConstrainedFits();
+		if (fits == null) return isSolved();
+		for (Placement fit : fits) {
+			place(fit);
+			if (complete())
+				return true;
+			unplace(fit);
+		}
+		return false;
+	}
+
+	//Counts the ways the empty spots of the board can be filled, without moving the pieces already placed
+	//Counting stops as soon as limit solutions are found, so asking for one more than expected is enough
+	//to tell whether there are too many. The board is left the way it was
+	//If the thread is interrupted, the count stops early
+	public int countSolutions(int limit) {
+		if (limit <= 0 || Thread.currentThread().isInterrupted()) return 0;
+		List<Placement> fits = getMostConstrainedFits();
+		if (fits == null) return isSolved() ? 1 : 0;
+		int count = 0;
+		for (Placement fit : fits) {
+			place(fit);
+			count += countSolutions(limit - count);
+			unplace(fit);
+			if (count >= limit)
+				break;
+		}
+		return count;
+	}
+
+	//returns the fits of the empty spot with the fewest of them, an empty list if some empty spot
+	//has no fits at all, or null if the board is full
+	//Only spots next to a placed piece are looked at, since any other spot fits every unused piece,
+	//unless there are no such spots, and then the first empty spot is used
+	private List<Placement> getMostConstrainedFits() {
+		List<Placement> bestFits = null;
+		int firstEmpty = -1;
+		for (int i = 0; i < board.getRows(); i++) {
+			for (int j = 0; j < board.getCols(); j++) {
+				if (!board.isOccupied(i, j)) {
+					if (firstEmpty < 0)
+						firstEmpty = i * board.getCols() + j;
+					if (!board.isOccupied(i - 1, j) && !board.isOccupied(i + 1, j)
+							&& !board.isOccupied(i, j - 1) && !board.isOccupied(i, j + 1))
+						continue;
+					List<Placement> fits = getFits(i, j);
+					if (fits.isEmpty())
+						return fits;
+					if (bestFits == null || fits.size() < bestFits.size())
+						bestFits = fits;
+				}
+			}
+		}
+		if (bestFits == null && firstEmpty >= 0)
+			return getFits(firstEmpty / board.getCols(), firstEmpty % board.getCols());
+		return bestFits;
+	}
+
+	//turns the piece of a placement and puts it on the board, telling the SolveListener
+	private void place(Placement fit) {
+		Piece piece = fit.getPiece();
+		piece.setOrientation(fit.getOrientation());
+		setPiece(piece, fit.getRow(), fit.getCol());
+		if(solveListener != null)
+			solveListener.placed(piece, fit.getRow(), fit.getCol());
+	}
+
+	//takes the piece of a placement back off the board, telling the SolveListener
+	private void unplace(Placement fit) {
+		removePiece(fit.getRow(), fit.getCol());
+		if(solveListener != null)
+			solveListener.removed(fit.getPiece(), fit.getRow(), fit.getCol());
+	}
+
 	// private overloaded method that takes in an index, row, and col 
 		//so the method can traverse through the board
 	private void solve(int index, int row, int col) {
 		if(pieces.size() <= 0) return;
-		while(index < pieces.size()){	
+		while(index < pieces.size() && !Thread.currentThread().isInterrupted()){	
 			int j = 0;
 			while(j < 4){
 				if(doesFit(pieces.get(index),row,col)){
 					int newRow = row, newCol = col;
-					setPiece(pieces.get(index), row, col);
+					Piece piece = pieces.get(index);
+					setPiece(piece, row, col);
+					if(solveListener != null)
+						solveListener.placed(piece, row, col);
 					if(!board.isValid(row, col + 1)) {	
 						newRow  = row + 1;
 						newCol = 0;
 					}
 					else {	newCol = col + 1;}
 					solve(0,newRow,newCol);
-					if(isSolved())
+					if(isSolved() || Thread.currentThread().isInterrupted())
 						break;
 					removePiece(row,col);
+					if(solveListener != null)
+						solveListener.removed(piece, row, col);
 				}
 				pieces.get(index).rotateClockwise();
 				j++;
@@ -151,21 +298,10 @@ public class Puzzle {
 
 	
 	// toString to print out a puzzle object. 
-	// both the board and ArrayList of unused pieces get printed
+	// the board gets printed, with a 1 for every placed piece, and then the number of unused pieces
+	// PuzzleText writes the whole puzzle, with all of its pieces
 	public String toString() {
-		for (int i = 0; i < board.getRows(); i++) {
-			for (int j = 0; j < board.getCols(); j++) {
-				if (board.getPiece(i, j) != null) {
-					System.out.print(1 + " ");
-				} else {
-					System.out.print(0 + " ");
-				}
-			}
-			System.out.println();
-		}
-		System.out.println();
-		// System.out.println(pieces);
-		return "";
+		return board.toString() + pieces.size() + " unused pieces";
 	}
 
 	public static void main(String[] args) {
@@ -0,0 +1,352 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * The purpose of this class is to save puzzles, and their solutions, to a small binary file and read them back
+ * The file starts with a header, then a table of where every puzzle starts, then the puzzles one after another:
+ * 		header:  magic "PUZF", version (2 bytes), number of puzzles (4 bytes),
+ * 		         number of Side values (1 byte), then the value of every Side (1 byte each, signed)
+ * 		table:   the offset of every puzzle from the start of the file (8 bytes each)
+ * 		puzzle:  rows, cols, number of pieces (4 bytes each), bits per side (1 byte), whether there is a solution (1 byte),
+ * 		         the sides of every piece, top, right, bottom, left, each one the Side's place in the header in bits per side bits,
+ * 		         then (if there is a solution) one varint per spot, row by row: the piece's number times 4 plus its orientation
+ * A piece's number is its place in the file, which is the order of the pieces' ids
+ * Since the header lists the Side values, a file can be read even if Side's constants are reordered or added to,
+ * and a file with a value Side doesn't have is refused when it is opened instead of being read wrong
+ * The file is read with memory maps, so opening it reads nothing, and a puzzle's sides are only read when they are asked for.
+ * It is mapped in pieces of 1GB, since one map can't be bigger than 2GB, so files of any size can be read.
+ * Any puzzle can be found right away from the table, without reading the ones before it
+ * Puzzles are written one at a time, and the table is filled in at the end, so writing never holds the whole file in memory
+ */
+public class PuzzleFile {
+
+	//the first four bytes of every puzzle file, "PUZF"
+	public static final int MAGIC = 0x50555A46;
+	//the version of the format written by this class
+	public static final int VERSION = 2;
+
+	//the file is mapped in pieces of 1 << SEGMENT_BITS bytes
+	private static final int SEGMENT_BITS = 30;
+	private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+	//where the Side values start in the header
+	private static final int ALPHABET_START = 11;
+
+	//the whole file, mapped into memory one piece after another
+	private ByteBuffer[] segments;
+	//the length of the file
+	private long length;
+	//the number of puzzles in the file
+	private int count;
+	//the Sides of the file, by their place in the header
+	private Side[] alphabet;
+	//where the table starts
+	private long tableStart;
+
+	//Opens a puzzle file. Nothing but the header is read until a puzzle is asked for
+	public PuzzleFile(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			length = channel.size();
+			segments = new ByteBuffer[(int) ((length + SEGMENT_MASK) >>> SEGMENT_BITS)];
+			for (int i = 0; i < segments.length; i++) {
+				long from = (long) i << SEGMENT_BITS;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(SEGMENT_MASK + 1, length - from));
+			}
+		}
+		if (length < ALPHABET_START || readInt(0) != MAGIC)
+			throw new IOException("not a puzzle file: " + path);
+		int version = (readByte(4) << 8) | (readByte(5) & 0xFF);
+		if (version != VERSION)
+			throw new IOException("unknown puzzle file version " + version + ": " + path);
+		count = readInt(6);
+		int sides = readByte(10) & 0xFF;
+		tableStart = ALPHABET_START + sides;
+		if (count < 0 || length < tableStart + 8L * count)
+			throw new IOException("puzzle file is cut short: " + path);
+		alphabet = new Side[sides];
+		for (int i = 0; i < sides; i++) {
+			alphabet[i] = toSide(readByte(ALPHABET_START + i));
+			if (alphabet[i] == null)
+				throw new IOException("unknown side value " + readByte(ALPHABET_START + i) + ": " + path);
+		}
+	}
+
+	//returns the number of puzzles in the file
+	public int size() {
+		return count;
+	}
+
+	//returns a view of the puzzle at the index. Nothing is copied out of the file
+	public Entry get(int index) {
+		if (index < 0 || index >= count)
+			throw new IndexOutOfBoundsException("puzzle " + index + " of " + count);
+		return new Entry(this, readLong(tableStart + 8L * index));
+	}
+
+	//returns the byte at a place in the file
+	private byte readByte(long position) {
+		return segments[(int) (position >>> SEGMENT_BITS)].get((int) (position & SEGMENT_MASK));
+	}
+
+	//returns the 4 bytes at a place in the file, highest first. They may be split between two maps
+	private int readInt(long position) {
+		return (readByte(position) << 24) | ((readByte(position + 1) & 0xFF) << 16)
+				| ((readByte(position + 2) & 0xFF) << 8) | (readByte(position + 3) & 0xFF);
+	}
+
+	//returns the 8 bytes at a place in the file, highest first
+	private long readLong(long position) {
+		return ((long) readInt(position) << 32) | (readInt(position + 4) & 0xFFFFFFFFL);
+	}
+
+	//returns the Side with the given value, or null if there isn't one
+	private static Side toSide(int value) {
+		for (Side side : Side.values()) {
+			if (side.getValue() == value) return side;
+		}
+		return null;
+	}
+
+	//Writes puzzles to a file. A puzzle with every spot filled is written with its board as the solution
+	//Only one puzzle is held in memory at a time. The table is written as zeros at first, and filled in once every
+	//puzzle has been written and their offsets are known
+	public static void write(Path path, List<Puzzle> puzzles) throws IOException {
+		Side[] sides = Side.values();
+		long tableStart = ALPHABET_START + sides.length;
+		long[] offsets = new long[puzzles.size()];
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			//not closed, since that would close the channel before the table is filled in
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeInt(puzzles.size());
+			out.writeByte(sides.length);
+			for (Side side : sides) {
+				out.writeByte(side.getValue());
+			}
+			for (int i = 0; i < offsets.length; i++) {
+				out.writeLong(0);
+			}
+			long offset = tableStart + 8L * offsets.length;
+			for (int i = 0; i < offsets.length; i++) {
+				byte[] record = toBytes(puzzles.get(i));
+				offsets[i] = offset;
+				out.write(record);
+				offset += record.length;
+			}
+			out.flush();
+
+			ByteBuffer table = ByteBuffer.allocate(8 * 1024);
+			for (int i = 0; i < offsets.length; ) {
+				table.clear();
+				while (i < offsets.length && table.hasRemaining()) {
+					table.putLong(offsets[i++]);
+				}
+				table.flip();
+				long position = tableStart + 8L * i - table.remaining();
+				while (table.hasRemaining()) {
+					position += channel.write(table, position);
+				}
+			}
+		}
+	}
+
+	//returns the bytes of one puzzle in the file
+	private static byte[] toBytes(Puzzle puzzle) throws IOException {
+		List<Piece> pieces = getPieces(puzzle);
+		int bits = bitsPerSide(Side.values().length);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		boolean solved = puzzle.isSolved();
+		out.writeInt(puzzle.getRows());
+		out.writeInt(puzzle.getCols());
+		out.writeInt(pieces.size());
+		out.writeByte(bits);
+		out.writeByte(solved ? 1 : 0);
+
+		//the sides are packed into bits, starting at the highest bit of each byte
+		int current = 0, used = 0;
+		for (Piece piece : pieces) {
+			for (int d = 0; d < 4; d++) {
+				current = (current << bits) | piece.getSide(direction(d), 0).ordinal();
+				used += bits;
+				while (used >= 8) {
+					out.writeByte(current >>> (used - 8));
+					used -= 8;
+				}
+			}
+		}
+		if (used > 0)
+			out.writeByte(current << (8 - used));
+		//one more byte, so reading a side never goes past the end of the sides
+		out.writeByte(0);
+
+		if (solved) {
+			//the number of every piece, by its identity, since ids don't have to be 0 to n - 1
+			IdentityHashMap<Piece, Integer> numbers = new IdentityHashMap<Piece, Integer>();
+			for (int i = 0; i < pieces.size(); i++) {
+				numbers.put(pieces.get(i), i);
+			}
+			for (int row = 0; row < puzzle.getRows(); row++) {
+				for (int col = 0; col < puzzle.getCols(); col++) {
+					Piece piece = puzzle.getPiece(row, col);
+					writeVarint(out, numbers.get(piece) * 4 + piece.getOrientation());
+				}
+			}
+		}
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	//returns every piece of the puzzle, on the board or not, in order of their ids
+	private static List<Piece> getPieces(Puzzle puzzle) {
+		List<Piece> pieces = new ArrayList<Piece>(puzzle.getUnused());
+		for (int row = 0; row < puzzle.getRows(); row++) {
+			for (int col = 0; col < puzzle.getCols(); col++) {
+				if (puzzle.getPiece(row, col) != null)
+					pieces.add(puzzle.getPiece(row, col));
+			}
+		}
+		Collections.sort(pieces, new Comparator<Piece>() {
+			public int compare(Piece a, Piece b) {
+				return Integer.compare(a.getId(), b.getId());
+			}
+		});
+		return pieces;
+	}
+
+	//Writes a number 7 bits at a time, lowest bits first, with the top bit of each byte set if more bytes follow
+	private static void writeVarint(OutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	//returns the number of bits needed to write any of the given number of values
+	private static int bitsPerSide(int values) {
+		return Math.max(1, 32 - Integer.numberOfLeadingZeros(values - 1));
+	}
+
+	//returns the Direction with the given value (0 is top, 1 is right, and so on)
+	private static Direction direction(int value) {
+		for (Direction direction : Direction.values()) {
+			if (direction.getValue() == value) return direction;
+		}
+		return null;
+	}
+
+	//A view of one puzzle in a file. Its values are read from the file every time they are asked for
+	public static class Entry {
+		//the file the puzzle is in
+		private PuzzleFile file;
+		//where the puzzle starts in the file
+		private long start;
+		//where the sides of the pieces start in the file
+		private long sidesStart;
+
+		private Entry(PuzzleFile file, long start) {
+			this.file = file;
+			this.start = start;
+			this.sidesStart = start + 14;
+		}
+
+		//returns the number of rows
+		public int getRows() {
+			return file.readInt(start);
+		}
+
+		//returns the number of columns
+		public int getCols() {
+			return file.readInt(start + 4);
+		}
+
+		//returns the number of pieces
+		public int getPieceCount() {
+			return file.readInt(start + 8);
+		}
+
+		//returns true if the solution is saved with the puzzle
+		public boolean hasSolution() {
+			return file.readByte(start + 13) != 0;
+		}
+
+		//returns a side of a piece, as it is before it is turned (0 is top, 1 is right, and so on)
+		public Side getSide(int piece, int side) {
+			int bits = file.readByte(start + 12);
+			long bit = ((long) piece * 4 + side) * bits;
+			long index = sidesStart + (bit >>> 3);
+			int twoBytes = ((file.readByte(index) & 0xFF) << 8) | (file.readByte(index + 1) & 0xFF);
+			int value = (twoBytes >>> (16 - bits - (int) (bit & 7))) & ((1 << bits) - 1);
+			return file.alphabet[value];
+		}
+
+		//returns a new Piece made from the sides of a piece in the file, with its number as its id
+		public Piece getPiece(int piece) {
+			return new Piece(piece, getSide(piece, 0), getSide(piece, 1), getSide(piece, 2), getSide(piece, 3));
+		}
+
+		//returns a new Puzzle with all of the pieces in the file, and none of them placed
+		public Puzzle toPuzzle() {
+			List<Piece> pieces = new ArrayList<Piece>();
+			for (int i = 0; i < getPieceCount(); i++) {
+				pieces.add(getPiece(i));
+			}
+			return new Puzzle(getRows(), getCols(), pieces);
+		}
+
+		//returns the solution, one number per spot, row by row: the piece's number times 4 plus its orientation,
+		//or null if the solution isn't saved
+		public int[] getSolution() {
+			if (!hasSolution()) return null;
+			int bits = file.readByte(start + 12);
+			long position = sidesStart + ((long) getPieceCount() * 4 * bits + 7) / 8 + 1;
+			int[] solution = new int[getRows() * getCols()];
+			for (int i = 0; i < solution.length; i++) {
+				int value = 0;
+				int shift = 0;
+				int b;
+				do {
+					b = file.readByte(position++);
+					value |= (b & 0x7F) << shift;
+					shift += 7;
+				} while ((b & 0x80) != 0);
+				solution[i] = value;
+			}
+			return solution;
+		}
+
+		//Places the pieces of a puzzle made by toPuzzle() the way the saved solution says
+		//Returns false if the solution isn't saved
+		public boolean applySolution(Puzzle puzzle) {
+			int[] solution = getSolution();
+			if (solution == null) return false;
+			puzzle.reset();
+			Piece[] byNumber = new Piece[getPieceCount()];
+			for (Piece piece : puzzle.getUnused()) {
+				byNumber[piece.getId()] = piece;
+			}
+			int cols = getCols();
+			for (int i = 0; i < solution.length; i++) {
+				Piece piece = byNumber[solution[i] / 4];
+				piece.setOrientation(solution[i] % 4);
+				puzzle.setPiece(piece, i / cols, i % cols);
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,373 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The purpose of this class is to make new puzzles that have exactly one solution
+ * A puzzle is made by giving every edge between two spots a random Side, so the pieces fit together in at least one way.
+ * The puzzle is then checked: it has to have exactly one solution, counting a solution and the same solution with the
+ * whole board turned as one. Solutions are counted as pictures, the Side values at every edge of every spot, so two pieces
+ * that are the same can be swapped, and a piece that looks the same turned can be turned, without making another solution
+ * The search stops at the first solution that isn't the board or the board turned, so a puzzle with many solutions is thrown out quickly
+ * A puzzle that fails has an edge changed and is checked again, at a spot where the other solution that was found is different,
+ * since any other change would leave that solution there. After too many changes it is started over
+ * With only 8 Side values, the ways of putting a random board together grow much faster than the edges that have to match,
+ * (n*n)! * 4^(n*n) against 8^(2n(n-1)), so a random board with many more than 16 pieces almost never has only one solution
+ * and generate() can take a very long time
+ * Many puzzles are made at once, one per thread, each thread with its own random numbers from the seed,
+ * so the same seed always makes the same puzzles
+ * Usage: java PuzzleGenerator rows cols count [-threads n] [-seed s] [-out file.puz]
+ */
+public class PuzzleGenerator {
+
+	//the number of times an edge is changed before a puzzle is started over
+	private static final int MAX_CHANGES = 50;
+
+	//the size of the puzzles
+	private int rows;
+	private int cols;
+	//makes the random choices
+	private Random random;
+	//the sides of every spot, top, right, bottom, left, as Side values
+	private int[][][] sides;
+
+	//while searching: every different way a piece can look on the board (see findOther), as its Side values,
+	//and the kind of piece it is, then the ones that fit each pair of top and left Side values (0 for anything)
+	private int[][] looks;
+	private int[] lookKind;
+	private int[][] fitting;
+	//the spots where the last other picture found was different from the board, or null if none was found
+	private List<Integer> differences;
+
+	//Constructs a PuzzleGenerator for puzzles of a size, that makes its random choices from a seed
+	public PuzzleGenerator(int rows, int cols, long seed) {
+		this.rows = rows;
+		this.cols = cols;
+		this.random = new Random(seed);
+		this.sides = new int[rows][cols][4];
+	}
+
+	//Makes a puzzle with exactly one solution. Its pieces are shuffled and turned, and none of them are placed.
+	//If the thread is interrupted, null is returned
+	public Puzzle generate() {
+		while (!Thread.currentThread().isInterrupted()) {
+			randomize();
+			for (int change = 0; change < MAX_CHANGES; change++) {
+				Puzzle puzzle = check();
+				if (puzzle != null)
+					return puzzle;
+				changeEdge();
+			}
+		}
+		return null;
+	}
+
+	//Makes puzzles with exactly one solution, on many threads. Each thread gets its own generator, with a seed made from the seed
+	public static List<Puzzle> generate(final int rows, final int cols, int count, int threads, long seed) throws InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Puzzle>> futures = new ArrayList<Future<Puzzle>>();
+			for (int i = 0; i < count; i++) {
+				final long puzzleSeed = seed * 31 + i;
+				futures.add(pool.submit(new Callable<Puzzle>() {
+					public Puzzle call() {
+						return new PuzzleGenerator(rows, cols, puzzleSeed).generate();
+					}
+				}));
+			}
+			List<Puzzle> puzzles = new ArrayList<Puzzle>();
+			for (Future<Puzzle> future : futures) {
+				try {
+					puzzles.add(future.get());
+				} catch (ExecutionException e) {
+					throw new RuntimeException(e.getCause());
+				}
+			}
+			return puzzles;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	//Gives every edge a random Side, and the spot on the other side of it the Side that fits
+	private void randomize() {
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				for (int d = 0; d < 4; d++) {
+					setSide(row, col, d, randomValue());
+				}
+			}
+		}
+	}
+
+	//Gives one random edge of one random spot a new random Side. The spot is one where the other picture that was found
+	//is different from the board, if there was one, since changing an edge anywhere else would leave that picture there
+	private void changeEdge() {
+		if (differences != null && !differences.isEmpty()) {
+			int spot = differences.get(random.nextInt(differences.size()));
+			setSide(spot / cols, spot % cols, random.nextInt(4), randomValue());
+		} else {
+			setSide(random.nextInt(rows), random.nextInt(cols), random.nextInt(4), randomValue());
+		}
+	}
+
+	//Sets a side of a spot, and the side of the spot next to it to the Side that fits
+	private void setSide(int row, int col, int direction, int value) {
+		sides[row][col][direction] = value;
+		int otherRow = row, otherCol = col;
+		if (direction == 0) otherRow--;
+		else if (direction == 1) otherCol++;
+		else if (direction == 2) otherRow++;
+		else otherCol--;
+		if (otherRow >= 0 && otherRow < rows && otherCol >= 0 && otherCol < cols)
+			sides[otherRow][otherCol][(direction + 2) % 4] = -value;
+	}
+
+	//returns a random Side value, from -4 to 4 but not 0
+	private int randomValue() {
+		int value = random.nextInt(4) + 1;
+		return random.nextBoolean() ? value : -value;
+	}
+
+	//Makes the puzzle from the sides, and returns it if it has exactly one solution, or null if it doesn't
+	private Puzzle check() {
+		if (findOther())
+			return null;
+		ArrayList<Piece> pieces = new ArrayList<Piece>();
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				int[] s = sides[row][col];
+				pieces.add(new Piece(toSide(s[0]), toSide(s[1]), toSide(s[2]), toSide(s[3])));
+			}
+		}
+		Collections.shuffle(pieces, random);
+		for (int i = 0; i < pieces.size(); i++) {
+			pieces.get(i).setId(i);
+			pieces.get(i).setOrientation(random.nextInt(4));
+		}
+		return new Puzzle(rows, cols, pieces);
+	}
+
+	//returns the board, and the board turned every way that keeps its size: a quarter at a time if it is square,
+	//or else only all the way around. These are the same solution, so they are the only pictures there can be
+	private List<int[][][]> getTurns() {
+		List<int[][][]> turns = new ArrayList<int[][][]>();
+		turns.add(sides);
+		int[][][] turned = sides;
+		for (int quarter = 1; quarter < 4; quarter++) {
+			turned = turn(turned);
+			if (rows == cols || quarter == 2)
+				turns.add(turned);
+		}
+		return turns;
+	}
+
+	//returns the sides of a board turned a quarter clockwise. Every piece turns with it, so its left side is now on top
+	private static int[][][] turn(int[][][] board) {
+		int height = board.length, width = board[0].length;
+		int[][][] turned = new int[width][height][4];
+		for (int row = 0; row < height; row++) {
+			for (int col = 0; col < width; col++) {
+				for (int d = 0; d < 4; d++) {
+					turned[col][height - 1 - row][(d + 1) % 4] = board[row][col][d];
+				}
+			}
+		}
+		return turned;
+	}
+
+	//Looks for a picture the pieces can make, other than the board and its turns, and keeps the spots where it is
+	//different from the board in differences, so the next change can be made where it breaks that picture
+	//A picture is the Side values at every edge of every spot, so pieces that are the same, and turns of a piece
+	//that look the same, are never two pictures. The pieces are sorted into kinds, pieces that are the same when turned,
+	//and each kind can look a few different ways: 4, or fewer if it looks the same turned. The spots are filled
+	//row by row with the ways that fit the spots above and to the left, while there are pieces of that kind left,
+	//so each picture is made exactly once
+	//Returns true if there is one. If the thread is interrupted, the search stops early and true is returned
+	private boolean findOther() {
+		//the kinds of pieces, by their smallest packed Side values, and how many there are of each
+		HashMap<Integer, Integer> kinds = new HashMap<Integer, Integer>();
+		List<Integer> left = new ArrayList<Integer>();
+		List<int[]> lookList = new ArrayList<int[]>();
+		List<Integer> kindList = new ArrayList<Integer>();
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				int[] s = sides[row][col];
+				int smallest = Integer.MAX_VALUE;
+				for (int turn = 0; turn < 4; turn++) {
+					smallest = Math.min(smallest, pack(s, turn));
+				}
+				Integer kind = kinds.get(smallest);
+				if (kind != null) {
+					left.set(kind, left.get(kind) + 1);
+					continue;
+				}
+				kind = left.size();
+				kinds.put(smallest, kind);
+				left.add(1);
+				HashSet<Integer> seen = new HashSet<Integer>();
+				for (int turn = 0; turn < 4; turn++) {
+					if (!seen.add(pack(s, turn))) continue;
+					int[] look = new int[4];
+					for (int d = 0; d < 4; d++) {
+						look[d] = s[(d - turn + 4) % 4];
+					}
+					lookList.add(look);
+					kindList.add(kind);
+				}
+			}
+		}
+		int[] counts = new int[left.size()];
+		for (int kind = 0; kind < counts.length; kind++) {
+			counts[kind] = left.get(kind);
+		}
+		looks = lookList.toArray(new int[0][]);
+		lookKind = new int[looks.length];
+		for (int i = 0; i < looks.length; i++) {
+			lookKind[i] = kindList.get(i);
+		}
+		//the looks that fit a top and left Side value, where 0 is any, which is what the top row and left column need
+		fitting = new int[81][];
+		for (int top = -4; top <= 4; top++) {
+			for (int leftValue = -4; leftValue <= 4; leftValue++) {
+				List<Integer> fits = new ArrayList<Integer>();
+				for (int i = 0; i < looks.length; i++) {
+					if ((top == 0 || looks[i][0] == top) && (leftValue == 0 || looks[i][3] == leftValue))
+						fits.add(i);
+				}
+				int[] array = new int[fits.size()];
+				for (int i = 0; i < array.length; i++) {
+					array[i] = fits.get(i);
+				}
+				fitting[(top + 4) * 9 + leftValue + 4] = array;
+			}
+		}
+
+		//the search, spot by spot, keeps the fits of every spot and the next one to try
+		List<int[][][]> turns = getTurns();
+		int spots = rows * cols;
+		int[][] fits = new int[spots][];
+		int[] next = new int[spots];
+		int[] placed = new int[spots];
+		boolean found = false;
+		int spot = 0;
+		long nodes = 0;
+		fits[0] = fitsAt(0, placed);
+		differences = null;
+		while (spot >= 0) {
+			if (next[spot] == fits[spot].length) {
+				//every way of filling this spot has been tried, so the one before it comes back off
+				if (--spot >= 0)
+					counts[lookKind[placed[spot]]]++;
+				continue;
+			}
+			int look = fits[spot][next[spot]++];
+			if (counts[lookKind[look]] == 0) continue;
+			if ((++nodes & 0xffff) == 0 && Thread.currentThread().isInterrupted()) {
+				found = true;
+				break;
+			}
+			placed[spot] = look;
+			if (spot + 1 == spots) {
+				if (isTurn(placed, turns)) continue;
+				differences = new ArrayList<Integer>();
+				for (int i = 0; i < spots; i++) {
+					if (!Arrays.equals(looks[placed[i]], sides[i / cols][i % cols]))
+						differences.add(i);
+				}
+				found = true;
+				break;
+			}
+			counts[lookKind[look]]--;
+			spot++;
+			fits[spot] = fitsAt(spot, placed);
+			next[spot] = 0;
+		}
+		looks = null;
+		lookKind = null;
+		fitting = null;
+		return found;
+	}
+
+	//returns true if the looks placed at every spot are the board, or one of its turns
+	private boolean isTurn(int[] placed, List<int[][][]> turns) {
+		for (int[][][] turn : turns) {
+			boolean same = true;
+			for (int i = 0; i < placed.length && same; i++) {
+				same = Arrays.equals(looks[placed[i]], turn[i / cols][i % cols]);
+			}
+			if (same) return true;
+		}
+		return false;
+	}
+
+	//returns the looks that fit at a spot, next to the looks placed above it and to the left of it
+	private int[] fitsAt(int spot, int[] placed) {
+		int row = spot / cols, col = spot % cols;
+		int top = (row > 0) ? -looks[placed[spot - cols]][2] : 0;
+		int leftValue = (col > 0) ? -looks[placed[spot - 1]][1] : 0;
+		return fitting[(top + 4) * 9 + leftValue + 4];
+	}
+
+	//returns the Side values of a spot, turned clockwise a number of times, packed 4 bits each
+	private static int pack(int[] s, int turn) {
+		int packed = 0;
+		for (int d = 0; d < 4; d++) {
+			packed = (packed << 4) | (s[(d - turn + 4) % 4] + 8);
+		}
+		return packed;
+	}
+
+	//returns the Side with a value
+	private static Side toSide(int value) {
+		for (Side side : Side.values()) {
+			if (side.getValue() == value) return side;
+		}
+		throw new IllegalArgumentException("no Side has the value " + value);
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 3) {
+			System.err.println("Usage: java PuzzleGenerator rows cols count [-threads n] [-seed s] [-out file.puz]");
+			System.exit(2);
+		}
+		int rows = Integer.parseInt(args[0]);
+		int cols = Integer.parseInt(args[1]);
+		int count = Integer.parseInt(args[2]);
+		int threads = Runtime.getRuntime().availableProcessors();
+		long seed = System.nanoTime();
+		String outName = null;
+		for (int i = 3; i + 1 < args.length; i += 2) {
+			if (args[i].equals("-threads")) threads = Integer.parseInt(args[i + 1]);
+			else if (args[i].equals("-seed")) seed = Long.parseLong(args[i + 1]);
+			else if (args[i].equals("-out")) outName = args[i + 1];
+		}
+		long start = System.nanoTime();
+		List<Puzzle> puzzles = generate(rows, cols, count, threads, seed);
+		System.err.printf("%d puzzles in %.3f seconds%n", puzzles.size(), (System.nanoTime() - start) / 1e9);
+		if (outName != null) {
+			PuzzleFile.write(Paths.get(outName), puzzles);
+		} else {
+			Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+			for (Puzzle puzzle : puzzles) {
+				PuzzleText.write(puzzle, out);
+			}
+			out.flush();
+		}
+	}
+}
@@ -0,0 +1,209 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * The purpose of this class is to write puzzles as text that people and other programs can read, and to read them back
+ * A puzzle is written like this, and a file can have any number of them, one after another:
+ * 		puzzle 3 3
+ * 		pieces 9
+ * 		0 CLUB_OUT HEART_OUT DIAMOND_IN CLUB_IN
+ * 		1 SPADE_OUT DIAMOND_OUT SPADE_IN HEART_IN
+ * 		...
+ * 		board
+ * 		0/1 . .
+ * 		. 4/0 .
+ * 		. . .
+ * 		end
+ * Every piece has its id and its sides, top, right, bottom and left, before it is turned
+ * The board has one line per row, with "." for an empty spot, or the id and orientation of the piece placed there
+ * Pieces that aren't on the board are read back turned to orientation 0. Anything after a # on a line is ignored
+ * Everything is read and written a little at a time, through a Reader or an Appendable,
+ * so a big puzzle never has to be turned into one big String
+ */
+public class PuzzleText {
+
+	//the directions in the order the sides of a piece are written
+	private static final Direction[] CLOCKWISE = {Direction.TOP, Direction.RIGHT, Direction.BOTTOM, Direction.LEFT};
+
+	//the text being read
+	private BufferedReader in;
+	//the line being read, for error messages
+	private int line = 1;
+	//the word being read, used over and over
+	private StringBuilder token = new StringBuilder();
+
+	//Constructs a PuzzleText that reads puzzles from a Reader
+	public PuzzleText(Reader in) {
+		this.in = (in instanceof BufferedReader) ? (BufferedReader) in : new BufferedReader(in);
+	}
+
+	//Reads the next puzzle, or returns null if there are no more
+	//Throws an IOException, with the line it happened on, if the text isn't a puzzle
+	public Puzzle next() throws IOException {
+		if (!nextToken()) return null;
+		expect("puzzle");
+		int rows = nextInt();
+		int cols = nextInt();
+		requireToken();
+		expect("pieces");
+		int count = nextInt();
+		ArrayList<Piece> pieces = new ArrayList<Piece>(count);
+		//the index in pieces of every id
+		HashMap<Integer, Integer> byId = new HashMap<Integer, Integer>();
+		for (int i = 0; i < count; i++) {
+			int id = nextInt();
+			Side[] sides = new Side[4];
+			for (int d = 0; d < 4; d++) {
+				requireToken();
+				try {
+					sides[d] = Side.valueOf(token.toString());
+				} catch (IllegalArgumentException e) {
+					throw error("unknown side " + token);
+				}
+			}
+			Piece piece = new Piece(id, sides[0], sides[1], sides[2], sides[3]);
+			if (byId.put(id, pieces.size()) != null)
+				throw error("two pieces have the id " + id);
+			pieces.add(piece);
+		}
+		//the board is read first, and the puzzle is made once it is known which pieces are unused,
+		//so a big board doesn't have to take every placed piece out of the unused list one at a time
+		Piece[] placed = new Piece[rows * cols];
+		boolean[] used = new boolean[count];
+		requireToken();
+		expect("board");
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				requireToken();
+				if (token.length() == 1 && token.charAt(0) == '.') continue;
+				int slash = token.indexOf("/");
+				if (slash < 0)
+					throw error("expected . or id/orientation but found " + token);
+				Integer index;
+				int orientation;
+				try {
+					index = byId.get(Integer.parseInt(token.substring(0, slash)));
+					orientation = Integer.parseInt(token.substring(slash + 1));
+				} catch (NumberFormatException e) {
+					throw error("expected . or id/orientation but found " + token);
+				}
+				if (orientation < 0 || orientation > 3)
+					throw error("orientation must be 0 to 3 but found " + token);
+				if (index == null || used[index])
+					throw error("no unused piece for " + token);
+				used[index] = true;
+				Piece piece = pieces.get(index);
+				piece.setOrientation(orientation);
+				placed[row * cols + col] = piece;
+			}
+		}
+		requireToken();
+		expect("end");
+		ArrayList<Piece> unused = new ArrayList<Piece>();
+		for (int i = 0; i < count; i++) {
+			if (!used[i])
+				unused.add(pieces.get(i));
+		}
+		return new Puzzle(rows, cols, unused, placed);
+	}
+
+	//Writes a puzzle, with every one of its pieces and its board
+	public static void write(Puzzle puzzle, Appendable out) throws IOException {
+		out.append("puzzle ").append(Integer.toString(puzzle.getRows()))
+				.append(' ').append(Integer.toString(puzzle.getCols())).append('\n');
+		int count = puzzle.getUnused().size();
+		for (int row = 0; row < puzzle.getRows(); row++) {
+			for (int col = 0; col < puzzle.getCols(); col++) {
+				if (puzzle.getPiece(row, col) != null)
+					count++;
+			}
+		}
+		out.append("pieces ").append(Integer.toString(count)).append('\n');
+		for (int row = 0; row < puzzle.getRows(); row++) {
+			for (int col = 0; col < puzzle.getCols(); col++) {
+				if (puzzle.getPiece(row, col) != null)
+					writePiece(puzzle.getPiece(row, col), out);
+			}
+		}
+		for (Piece piece : puzzle.getUnused()) {
+			writePiece(piece, out);
+		}
+		out.append("board\n");
+		for (int row = 0; row < puzzle.getRows(); row++) {
+			for (int col = 0; col < puzzle.getCols(); col++) {
+				if (col > 0) out.append(' ');
+				Piece piece = puzzle.getPiece(row, col);
+				if (piece == null) {
+					out.append('.');
+				} else {
+					out.append(Integer.toString(piece.getId())).append('/').append(Integer.toString(piece.getOrientation()));
+				}
+			}
+			out.append('\n');
+		}
+		out.append("end\n");
+	}
+
+	//Writes one piece as a line: its id, then its sides before it is turned
+	public static void writePiece(Piece piece, Appendable out) throws IOException {
+		out.append(Integer.toString(piece.getId()));
+		for (Direction direction : CLOCKWISE) {
+			out.append(' ').append(piece.getSide(direction, 0).name());
+		}
+		out.append('\n');
+	}
+
+	//Reads the next word into token, skipping spaces and comments. Returns false at the end of the text
+	private boolean nextToken() throws IOException {
+		token.setLength(0);
+		int c = in.read();
+		while (c != -1) {
+			if (c == '#') {
+				while (c != -1 && c != '\n') c = in.read();
+			}
+			else if (Character.isWhitespace(c)) {
+				if (c == '\n') line++;
+				c = in.read();
+			}
+			else break;
+		}
+		while (c != -1 && !Character.isWhitespace(c) && c != '#') {
+			token.append((char) c);
+			in.mark(1);
+			c = in.read();
+		}
+		//the character after the word is read again next time, so a newline or # isn't missed
+		if (c != -1 && token.length() > 0) in.reset();
+		return token.length() > 0;
+	}
+
+	//Reads the next word, which has to be there
+	private void requireToken() throws IOException {
+		if (!nextToken())
+			throw error("the text ended in the middle of a puzzle");
+	}
+
+	//Reads the next word as a number
+	private int nextInt() throws IOException {
+		requireToken();
+		try {
+			return Integer.parseInt(token.toString());
+		} catch (NumberFormatException e) {
+			throw error("expected a number but found " + token);
+		}
+	}
+
+	//Checks that the word that was just read is the expected one
+	private void expect(String word) throws IOException {
+		if (!word.contentEquals(token))
+			throw error("expected " + word + " but found " + token);
+	}
+
+	//returns an IOException that says which line the problem is on
+	private IOException error(String message) {
+		return new IOException("line " + line + ": " + message);
+	}
+}
@@ -0,0 +1,82 @@
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The purpose of this class is to keep a solve from running away by starting it over, in a different order, whenever a run goes on too long
+ * How long a search takes can depend a lot on the order it tries pieces in: one order finds the solution right away,
+ * another gets stuck under a bad early placement for hours. So each run tries candidates in a random order,
+ * and gives up after placing a set number of pieces, and the next run starts from scratch with the order it happens to pick
+ * The number of pieces a run may place grows by half each run, starting from a unit (the geometric schedule),
+ * or follows the Luby sequence (1, 1, 2, 1, 1, 2, 4, 1, 1, 2, ...) times the unit, so some runs are always long enough to finish
+ * The geometric schedule is the default, since puzzles with no solution have to be searched all the way, and it gets there sooner
+ * The runs use a BackjumpSolver, which keeps its nogoods from one run to the next, so nothing learned by a run is lost
+ * The Random is seeded, so a solve with the same seed always makes the same runs
+ */
+public class RestartSolver implements Solver {
+
+	//the number of pieces in the shortest run, by default
+	public static final long DEFAULT_UNIT = 1000;
+
+	//how much longer each run is than the one before, in the geometric schedule
+	private static final double GROWTH = 1.5;
+
+	private long seed;
+	private long unit;
+	private boolean geometric;
+	private BackjumpSolver solver = new BackjumpSolver();
+	private long nodes;
+	private int restarts;
+
+	//Constructs a RestartSolver that follows the geometric schedule with the default unit
+	public RestartSolver(long seed) {
+		this(seed, DEFAULT_UNIT, true);
+	}
+
+	//Constructs a RestartSolver whose shortest run places unit pieces, following the Luby schedule, or a geometric one
+	public RestartSolver(long seed, long unit, boolean geometric) {
+		this.seed = seed;
+		this.unit = unit;
+		this.geometric = geometric;
+	}
+
+	//returns the number of pieces placed during the last solve, over every run
+	public long getNodes() {
+		return nodes;
+	}
+
+	//returns the number of times the last solve started over
+	public int getRestarts() {
+		return restarts;
+	}
+
+	public int[] solve(EdgeTable table, BooleanSupplier cancelled) {
+		Random random = new Random(seed);
+		nodes = 0;
+		restarts = 0;
+		double budget = unit;
+		for (int run = 1; ; run++) {
+			long maxNodes = geometric ? (long) Math.min(budget, Long.MAX_VALUE) : unit * luby(run);
+			int[] solution = solver.solve(table, cancelled, random, maxNodes);
+			nodes += solver.getNodes();
+			//a run that didn't give up either solved the puzzle, proved there was no solution, or was cancelled
+			if (!solver.gaveUp()) return solution;
+			restarts++;
+			budget *= GROWTH;
+		}
+	}
+
+	//returns the ith number of the Luby sequence, starting from 1: 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, ...
+	public static long luby(int i) {
+		//finds the smallest full block, of length 2^k - 1, that i is in
+		int k = 1;
+		while ((1L << k) - 1 < i) k++;
+		while (true) {
+			//i is the last number in the block, which is 2^(k-1)
+			if (i == (1L << k) - 1) return 1L << (k - 1);
+			//otherwise, the block is two copies of the one before it, then its last number
+			i -= (int) ((1L << (k - 1)) - 1);
+			k = 1;
+			while ((1L << k) - 1 < i) k++;
+		}
+	}
+}
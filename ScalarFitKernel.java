@@ -0,0 +1,33 @@
+/**
+ * The purpose of this class is to check a batch of candidates against what a spot needs, one candidate at a time
+ * It works everywhere, so it is what FitKernel.create() falls back on when the VectorFitKernel can't be loaded
+ */
+public class ScalarFitKernel extends FitKernel {
+
+	public ScalarFitKernel(EdgeTable table) {
+		super(table);
+	}
+
+	public void match(int[] codes, int count, int[] required, long[] mask) {
+		clear(mask, count);
+		int care = care(required), want = want(required);
+		for (int i = 0; i < count; i++) {
+			if ((packed[codes[i]] & care) == want)
+				mask[i >>> 6] |= 1L << i;
+		}
+	}
+
+	public void matchAll(int[] required, long[] mask) {
+		int count = packed.length;
+		clear(mask, count);
+		int care = care(required), want = want(required);
+		for (int code = 0; code < count; code++) {
+			if ((packed[code] & care) == want)
+				mask[code >>> 6] |= 1L << code;
+		}
+	}
+
+	public String getName() {
+		return "scalar";
+	}
+}
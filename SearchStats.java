@@ -0,0 +1,92 @@
+/**
+ * The purpose of this class is to hold what happened during one search for a solution
+ * It is filled in by the search as it goes, and read afterwards, for example by the DifficultyRater
+ */
+public class SearchStats {
+
+	//the number of pieces placed, counting every try
+	private long nodes;
+	//the number of pieces taken back off because they led to a dead end
+	private long backtracks;
+	//the number of spots looked at, and the total number of ways of filling them that were found
+	private long spots;
+	private long choices;
+	//the number of spots that could only be filled one way
+	private long forced;
+	//the number of dead ends found with almost every spot filled
+	private long nearSolutions;
+	//true if the search found a solution
+	private boolean solved;
+	//true if the search gave up before it finished
+	private boolean gaveUp;
+
+	//Records a spot that was looked at, and how many ways there were to fill it
+	public void spot(int ways) {
+		spots++;
+		choices += ways;
+		if (ways == 1)
+			forced++;
+	}
+
+	//Records a piece being placed
+	public void placed() {
+		nodes++;
+	}
+
+	//Records a piece being taken back off
+	public void backtracked() {
+		backtracks++;
+	}
+
+	//Records a dead end with almost every spot filled
+	public void nearSolution() {
+		nearSolutions++;
+	}
+
+	//Records how the search ended
+	public void finished(boolean solved, boolean gaveUp) {
+		this.solved = solved;
+		this.gaveUp = gaveUp;
+	}
+
+	//returns the number of pieces placed, counting every try
+	public long getNodes() {
+		return nodes;
+	}
+
+	//returns the number of pieces taken back off
+	public long getBacktracks() {
+		return backtracks;
+	}
+
+	//returns the average number of ways a spot could be filled, when it was looked at
+	public double getBranchingFactor() {
+		return (spots == 0) ? 0 : (double) choices / spots;
+	}
+
+	//returns the part of the spots looked at, from 0 to 1, that could only be filled one way
+	public double getForcedRatio() {
+		return (spots == 0) ? 0 : (double) forced / spots;
+	}
+
+	//returns the number of dead ends found with almost every spot filled
+	public long getNearSolutions() {
+		return nearSolutions;
+	}
+
+	//returns true if the search found a solution
+	public boolean isSolved() {
+		return solved;
+	}
+
+	//returns true if the search gave up before it finished
+	public boolean gaveUp() {
+		return gaveUp;
+	}
+
+	// toString to print out the stats, like "nodes 120, backtracks 111, branching 1.84, forced 0.42, near 3"
+	public String toString() {
+		return String.format("nodes %d, backtracks %d, branching %.2f, forced %.2f, near %d",
+				nodes, backtracks, getBranchingFactor(), getForcedRatio(), nearSolutions);
+	}
+}
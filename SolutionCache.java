@@ -0,0 +1,195 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The purpose of this class is to keep the solutions of puzzles, so the same puzzle is only solved once
+ * A puzzle is found by its key: the board size and the signatures of its pieces, sorted.
+ * Signatures don't change when a piece is turned, and sorting them means the order of the pieces doesn't matter,
+ * so every puzzle made from the same pieces has the same key
+ * A solution is kept as one number per spot, row by row: the four sides of the piece as it is turned there
+ * The most recently used solutions are kept in memory, and every solution is also written to a directory,
+ * one file per puzzle, so they are still there the next time the program runs
+ */
+public class SolutionCache {
+
+	//the solutions in memory, the least recently used one first
+	private LinkedHashMap<String, int[]> memory;
+	//the directory the solutions are written to, or null to only keep them in memory
+	private File directory;
+
+	//Constructs a cache that keeps up to capacity solutions in memory, and writes them to a directory (which can be null)
+	public SolutionCache(final int capacity, File directory) {
+		this.directory = directory;
+		this.memory = new LinkedHashMap<String, int[]>(16, 0.75f, true) {
+			protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+				return size() > capacity;
+			}
+		};
+		if (directory != null)
+			directory.mkdirs();
+	}
+
+	//Solves the puzzle, using the saved solution if there is one, and saves the solution if there isn't
+	//Returns true if the puzzle was solved
+	public boolean solve(Puzzle puzzle) {
+		puzzle.reset();
+		String key = getKey(puzzle);
+		int[] solution = get(key);
+		if (solution != null && apply(puzzle, solution))
+			return true;
+		puzzle.solve();
+		if (!puzzle.isSolved())
+			return false;
+		put(key, toState(puzzle));
+		return true;
+	}
+
+	//Returns the key of a puzzle, which is the same for any puzzle with the same board size and the same pieces,
+	//no matter what order they are in or how they are turned
+	public static String getKey(Puzzle puzzle) {
+		List<Piece> all = new ArrayList<Piece>(puzzle.getUnused());
+		for (int row = 0; row < puzzle.getRows(); row++) {
+			for (int col = 0; col < puzzle.getCols(); col++) {
+				if (puzzle.getPiece(row, col) != null)
+					all.add(puzzle.getPiece(row, col));
+			}
+		}
+		int[] signatures = new int[all.size()];
+		for (int i = 0; i < signatures.length; i++) {
+			signatures[i] = all.get(i).getSignature();
+		}
+		Arrays.sort(signatures);
+		StringBuilder key = new StringBuilder();
+		key.append(puzzle.getRows()).append('x').append(puzzle.getCols());
+		for (int signature : signatures) {
+			key.append(' ').append(Integer.toHexString(signature));
+		}
+		return key.toString();
+	}
+
+	//Returns the saved solution for a key, from memory or from the directory, or null if there is none
+	public synchronized int[] get(String key) {
+		int[] solution = memory.get(key);
+		if (solution == null) {
+			solution = read(key);
+			if (solution != null)
+				memory.put(key, solution);
+		}
+		return solution;
+	}
+
+	//Saves the solution for a key, in memory and in the directory
+	public synchronized void put(String key, int[] solution) {
+		memory.put(key, solution);
+		write(key, solution);
+	}
+
+	//returns the number of solutions in memory
+	public synchronized int size() {
+		return memory.size();
+	}
+
+	//Places the unused pieces of the puzzle the way the solution says
+	//Returns false, leaving the board empty, if the pieces don't match the solution
+	private static boolean apply(Puzzle puzzle, int[] solution) {
+		int cols = puzzle.getCols();
+		if (solution.length != puzzle.getRows() * cols) return false;
+		for (int i = 0; i < solution.length; i++) {
+			Piece found = null;
+			int foundOrientation = 0;
+			for (Piece piece : puzzle.getUnused()) {
+				for (int orientation = 0; orientation < 4 && found == null; orientation++) {
+					if (piece.getPackedSides(orientation) == solution[i]) {
+						found = piece;
+						foundOrientation = orientation;
+					}
+				}
+				if (found != null) break;
+			}
+			if (found == null) {
+				puzzle.reset();
+				return false;
+			}
+			found.setOrientation(foundOrientation);
+			puzzle.setPiece(found, i / cols, i % cols);
+		}
+		return true;
+	}
+
+	//Returns the board of the puzzle as one number per spot
+	private static int[] toState(Puzzle puzzle) {
+		int[] state = new int[puzzle.getRows() * puzzle.getCols()];
+		for (int row = 0; row < puzzle.getRows(); row++) {
+			for (int col = 0; col < puzzle.getCols(); col++) {
+				Piece piece = puzzle.getPiece(row, col);
+				state[row * puzzle.getCols() + col] = piece.getPackedSides(piece.getOrientation());
+			}
+		}
+		return state;
+	}
+
+	//Returns the file a key's solution is written to, named after a 64 bit hash of the key
+	private File getFile(String key) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < key.length(); i++) {
+			hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+		}
+		return new File(directory, String.format("%016x.solution", hash));
+	}
+
+	//Reads a solution from the directory. The file starts with the whole key, so a file
+	//for a different puzzle with the same hash is never used
+	private int[] read(String key) {
+		if (directory == null) return null;
+		File file = getFile(key);
+		if (!file.isFile()) return null;
+		try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			if (!key.equals(in.readLine())) return null;
+			String line = in.readLine();
+			if (line == null) return null;
+			String[] values = line.trim().split(" ");
+			int[] solution = new int[values.length];
+			for (int i = 0; i < values.length; i++) {
+				solution[i] = Integer.parseInt(values[i], 16);
+			}
+			return solution;
+		} catch (IOException | NumberFormatException e) {
+			return null;
+		}
+	}
+
+	//Writes a solution to the directory. It is written to a temporary file that is then renamed,
+	//so a file is never seen half written
+	private void write(String key, int[] solution) {
+		if (directory == null) return;
+		File file = getFile(key);
+		File temp = null;
+		try {
+			temp = File.createTempFile("solution", ".tmp", directory);
+			try (Writer out = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+				out.write(key);
+				out.write('\n');
+				for (int i = 0; i < solution.length; i++) {
+					if (i > 0) out.write(' ');
+					out.write(Integer.toHexString(solution[i]));
+				}
+				out.write('\n');
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			//the solution is still in memory, it just won't be there next time
+			if (temp != null)
+				temp.delete();
+		}
+	}
+}
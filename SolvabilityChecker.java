@@ -0,0 +1,259 @@
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import javax.swing.SwingUtilities;
+
+/**
+ * SolvabilityChecker.java
+ *
+ * A SolvabilityChecker decides, in the background, whether the
+ * pieces the player has put on the board can still be part of a
+ * solution. It is given the Puzzle after every move, and tells its
+ * Listener the answer on the Swing thread.
+ *
+ * Most moves are answered right away, without searching, from what
+ * earlier checks found out (the last few of each are remembered):
+ * 		- if every placed piece matches a solution that was found,
+ * 		  the board is still solvable
+ * 		- if the board still has every piece of a board that could
+ * 		  not be solved, it can't be solved either
+ * Otherwise a copy of the Puzzle is completed with Puzzle.complete().
+ * Going back a move, or trying a piece and taking it off again, is
+ * answered from these, so only new boards are searched.
+ *
+ * Every SolvabilityChecker shares a small pool of low priority
+ * worker threads, one for every four cores (at least one), so many
+ * players' checks can run at once without taking over the machine.
+ * When the board changes, the check for the old board is cancelled,
+ * so each SolvabilityChecker has at most one check waiting or
+ * running. A check that takes more than a set number of moves, or
+ * more than a set time, gives up with an UNKNOWN answer instead of
+ * holding up its worker, so every answer comes within that time.
+ *
+ * Boards are compared as one number per spot (row by row): the
+ * four sides of the piece as it is turned there, or 0 if the spot
+ * is empty. Two pieces that are turned to have the same sides can
+ * be swapped in any solution, so this is all that matters.
+ */
+public class SolvabilityChecker {
+
+	/*
+	 * The answer to whether a board can still be solved.
+	 */
+	public enum Verdict { SOLVABLE, UNSOLVABLE, UNKNOWN }
+
+	/*
+	 * Gets told the answer for the newest board, on the Swing thread.
+	 */
+	public interface Listener {
+		void verdict(Verdict verdict);
+	}
+
+	private static final int THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+
+	private static final ExecutorService WORKERS = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "SolvabilityChecker");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		}
+	});
+
+	// how many solutions, and how many boards that can't be solved, are remembered
+	private static final int REMEMBERED = 16;
+
+	private Listener listener;
+	private long maxMoves;
+	private long maxMillis;
+
+	// only used on the Swing thread. The most recent are first
+	private int generation;
+	private Future<?> running;
+	private LinkedList<int[]> solutions = new LinkedList<int[]>();
+	private LinkedList<int[]> unsolvable = new LinkedList<int[]>();
+
+	/*
+	 * Constructs a SolvabilityChecker.
+	 *
+	 * Parameters:
+	 * 		Listener listener = gets told the answer for every board
+	 * 		long maxMoves = the most pieces a check places before it gives up
+	 * 		long maxMillis = the most time a check takes before it gives up
+	 */
+	public SolvabilityChecker(Listener listener, long maxMoves, long maxMillis) {
+		this.listener = listener;
+		this.maxMoves = maxMoves;
+		this.maxMillis = maxMillis;
+	}
+
+	/*
+	 * Starts checking whether the board of a Puzzle can still be
+	 * solved, cancelling any check that is still going. Must be
+	 * called on the Swing thread.
+	 *
+	 * Parameters:
+	 * 		Puzzle puzzle = the Puzzle to check (it is copied, so it can keep changing)
+	 */
+	public void check(Puzzle puzzle) {
+		cancel();
+		int[] board = toState(puzzle);
+		if (remembered(solutions, board, true)) {
+			listener.verdict(Verdict.SOLVABLE);
+			return;
+		}
+		if (remembered(unsolvable, board, false)) {
+			listener.verdict(Verdict.UNSOLVABLE);
+			return;
+		}
+
+		final int checked = generation;
+		final int[] checkedBoard = board;
+		final Puzzle copy = puzzle.copy();
+		running = WORKERS.submit(new Runnable() {
+			public void run() {
+				MoveCounter counter = new MoveCounter();
+				copy.setSolveListener(counter);
+				boolean solved = copy.complete();
+				// clears the interrupt, so the worker can go on to the next check
+				Thread.interrupted();
+				final Verdict verdict = solved ? Verdict.SOLVABLE
+						: counter.gaveUp ? Verdict.UNKNOWN : Verdict.UNSOLVABLE;
+				final int[] filled = solved ? toState(copy) : null;
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						if (checked != generation) return;
+						if (verdict == Verdict.SOLVABLE) {
+							remember(solutions, filled);
+						}
+						else if (verdict == Verdict.UNSOLVABLE) {
+							remember(unsolvable, checkedBoard);
+						}
+						running = null;
+						listener.verdict(verdict);
+					}
+				});
+			}
+		});
+	}
+
+	/*
+	 * Cancels the check that is still going, if there is one. Its
+	 * answer is never given to the Listener.
+	 */
+	public void cancel() {
+		generation++;
+		if (running != null) {
+			running.cancel(true);
+			running = null;
+		}
+	}
+
+	/*
+	 * Looks for a remembered board that answers for a board, and
+	 * moves it to the front if there is one.
+	 *
+	 * Parameters:
+	 * 		LinkedList<int[]> boards = the remembered boards
+	 * 		int[] board = the board to answer for
+	 * 		boolean inside = true if board has to be part of a remembered
+	 * 			board (a solution), false if a remembered board has to be
+	 * 			part of board (one that can't be solved)
+	 *
+	 * Returns:
+	 * 		boolean; whether a remembered board answers for board
+	 */
+	private static boolean remembered(LinkedList<int[]> boards, int[] board, boolean inside) {
+		Iterator<int[]> it = boards.iterator();
+		while (it.hasNext()) {
+			int[] known = it.next();
+			if (inside ? matches(board, known) : matches(known, board)) {
+				it.remove();
+				boards.addFirst(known);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Remembers a board, forgetting the one that was used longest ago
+	 * if there are too many.
+	 *
+	 * Parameters:
+	 * 		LinkedList<int[]> boards = the remembered boards
+	 * 		int[] board = the board to remember
+	 */
+	private static void remember(LinkedList<int[]> boards, int[] board) {
+		boards.addFirst(board);
+		if (boards.size() > REMEMBERED) {
+			boards.removeLast();
+		}
+	}
+
+	/*
+	 * Converts the board of a Puzzle into one number per spot.
+	 *
+	 * Parameters:
+	 * 		Puzzle puzzle = the Puzzle to convert
+	 *
+	 * Returns:
+	 * 		int[]; the board, row by row
+	 */
+	private static int[] toState(Puzzle puzzle) {
+		int[] state = new int[puzzle.getRows() * puzzle.getCols()];
+		for (int row = 0; row < puzzle.getRows(); row++) {
+			for (int col = 0; col < puzzle.getCols(); col++) {
+				Piece piece = puzzle.getPiece(row, col);
+				if (piece != null) {
+					state[row * puzzle.getCols() + col] = piece.getPackedSides(piece.getOrientation());
+				}
+			}
+		}
+		return state;
+	}
+
+	/*
+	 * Checks whether every piece on a board is also on a bigger board.
+	 *
+	 * Parameters:
+	 * 		int[] board = the board to look for
+	 * 		int[] bigger = the board to look in
+	 *
+	 * Returns:
+	 * 		boolean; whether every spot that is filled in board is
+	 * 			filled the same way in bigger
+	 */
+	private static boolean matches(int[] board, int[] bigger) {
+		if (board.length != bigger.length) return false;
+		for (int i = 0; i < board.length; i++) {
+			if (board[i] != 0 && board[i] != bigger[i]) return false;
+		}
+		return true;
+	}
+
+	/*
+	 * Counts the pieces a check places, and stops the check once
+	 * there have been too many or it has run out of time.
+	 */
+	private class MoveCounter implements SolveListener {
+		private long moves;
+		private boolean gaveUp;
+		private long deadline = System.nanoTime() + maxMillis * 1000000L;
+
+		public void placed(Piece piece, int row, int col) {
+			moves++;
+			// the clock is only read every 256 moves, since it is slow next to a move
+			if (moves > maxMoves || ((moves & 255) == 0 && System.nanoTime() - deadline > 0)) {
+				gaveUp = true;
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		public void removed(Piece piece, int row, int col) {}
+	}
+
+}
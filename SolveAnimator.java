@@ -0,0 +1,155 @@
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import javax.swing.Timer;
+
+/**
+ * SolveAnimator.java
+ *
+ * A SolveAnimator shows the solver working on the BoardComponent.
+ * The solver runs on its own thread, on a copy of the Puzzle, and
+ * tells the SolveAnimator about every piece it places or takes back.
+ *
+ * The SolveAnimator keeps track of the solver's board, and about once
+ * per frame it puts a copy of it into a small queue. If the queue is
+ * full, the copy is just dropped, so the solver never waits for the
+ * screen. A Swing Timer takes the newest board out of the queue at
+ * the frame rate and shows it on the BoardComponent, skipping any
+ * older ones. When the solver finishes, its final board is always shown.
+ *
+ * A board is stored as one number per spot (row by row): the id of the
+ * Piece times 4 plus its orientation, or -1 if the spot is empty.
+ */
+public class SolveAnimator implements SolveListener {
+
+	// how many moves go by between checks of the clock
+	private static final int CHECK_EVERY = 16;
+
+	private BoardComponent boardComponent;
+	private Puzzle puzzle;
+	private Timer timer;
+	private Thread solverThread;
+	private Runnable whenDone;
+
+	// only used by the solver's thread
+	private int cols;
+	private int[] state;
+	private int moves;
+	private long lastFrame;
+	private long frameNanos;
+
+	private ArrayBlockingQueue<int[]> frames = new ArrayBlockingQueue<int[]>(2);
+	private volatile int[] finalState;
+
+	/*
+	 * Constructs a SolveAnimator that solves a copy of a Puzzle, and
+	 * shows it on a BoardComponent.
+	 *
+	 * Parameters:
+	 * 		BoardComponent boardComponent = the BoardComponent to show the solver on
+	 * 		Puzzle puzzle = the Puzzle to solve (it is copied, so it isn't changed by the solver)
+	 * 		int framesPerSecond = the most times per second the BoardComponent is updated
+	 */
+	public SolveAnimator(BoardComponent boardComponent, Puzzle puzzle, int framesPerSecond) {
+		this.boardComponent = boardComponent;
+		this.puzzle = puzzle.copy();
+		this.cols = puzzle.getCols();
+		this.state = new int[puzzle.getRows() * puzzle.getCols()];
+		this.frameNanos = 1000000000L / framesPerSecond;
+		Arrays.fill(state, -1);
+
+		timer = new Timer(1000 / framesPerSecond, new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				showFrame();
+			}
+		});
+	}
+
+	/*
+	 * Starts the solver on its own thread, and starts showing it.
+	 *
+	 * Parameters:
+	 * 		Runnable whenDone = run on the Swing thread after the final board
+	 * 			is shown (or null)
+	 */
+	public void start(Runnable whenDone) {
+		this.whenDone = whenDone;
+		puzzle.setSolveListener(this);
+		solverThread = new Thread(new Runnable() {
+			public void run() {
+				puzzle.solve();
+				if (!Thread.currentThread().isInterrupted()) {
+					finalState = state.clone();
+				}
+			}
+		}, "SolveAnimator");
+		solverThread.setDaemon(true);
+		solverThread.setPriority(Thread.MIN_PRIORITY);
+		timer.start();
+		solverThread.start();
+	}
+
+	/*
+	 * Stops the solver and stops showing it. The BoardComponent is left
+	 * the way it was last shown.
+	 */
+	public void stop() {
+		timer.stop();
+		if (solverThread != null) {
+			solverThread.interrupt();
+		}
+	}
+
+	/*
+	 * Called by the solver when it places a piece.
+	 */
+	public void placed(Piece piece, int row, int col) {
+		state[row * cols + col] = piece.getId() * 4 + piece.getOrientation();
+		moved();
+	}
+
+	/*
+	 * Called by the solver when it takes a piece back.
+	 */
+	public void removed(Piece piece, int row, int col) {
+		state[row * cols + col] = -1;
+		moved();
+	}
+
+	/*
+	 * Every so often, if a frame has gone by and there is room in the
+	 * queue, puts a copy of the solver's board into the queue.
+	 */
+	private void moved() {
+		if (++moves % CHECK_EVERY != 0) return;
+		long now = System.nanoTime();
+		if (now - lastFrame >= frameNanos && frames.remainingCapacity() > 0) {
+			frames.offer(state.clone());
+			lastFrame = now;
+		}
+	}
+
+	/*
+	 * Shows the newest board from the queue (or the final board, once
+	 * the solver is done) on the BoardComponent.
+	 */
+	private void showFrame() {
+		int[] newest = null;
+		for (int[] frame = frames.poll(); frame != null; frame = frames.poll()) {
+			newest = frame;
+		}
+		int[] done = finalState;
+		if (done != null) {
+			newest = done;
+			timer.stop();
+		}
+		if (newest != null) {
+			boardComponent.showState(newest);
+		}
+		if (done != null && whenDone != null) {
+			whenDone.run();
+		}
+	}
+
+}
@@ -0,0 +1,14 @@
+/**
+ * The purpose of this interface is to let other code watch a Puzzle while it is being solved
+ * The solver calls it every time it puts a piece on the board or takes one back off
+ * The calls happen on the thread doing the solving, in the middle of the search,
+ * so they have to be quick and must never wait on anything
+ */
+public interface SolveListener {
+
+	//called right after the solver puts a piece (already turned to its orientation) on the board
+	void placed(Piece piece, int row, int col);
+
+	//called right after the solver takes a piece back off the board to try something else
+	void removed(Piece piece, int row, int col);
+}
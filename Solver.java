@@ -0,0 +1,16 @@
+import java.util.function.BooleanSupplier;
+
+/**
+ * The purpose of this interface is to let different ways of solving a puzzle be used in the same places
+ * A Solver works on an EdgeTable, and answers with one candidate (piece * 4 + orientation) per spot, row by row
+ * Solving can take a long time, so a Solver keeps asking whether it has been cancelled, and stops if it has
+ */
+public interface Solver {
+
+	//Solves the puzzle in the table, keeping the fixed spots where they are
+	//Returns one candidate per spot, or null if there is no solution or the solver was cancelled
+	int[] solve(EdgeTable table, BooleanSupplier cancelled);
+
+	//returns the number of pieces placed during the last solve, counting every try
+	long getNodes();
+}
@@ -0,0 +1,207 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The purpose of this class is to share the WorkUnits of a search between processes, through a directory they can all see
+ * The directory has:
+ * 		- puzzle.txt, the puzzle being searched, as PuzzleText
+ * 		- todo, the units waiting to be done
+ * 		- claimed, the units being done. A worker claims a unit by moving it here from todo, which only one worker can do,
+ * 		  and keeps touching it while it works, so a unit that hasn't been touched in a while belongs to a worker that died
+ * 		- done, the Result of every unit that was done, by the unit's id
+ * 		- tmp, where files are written before they are moved into place, so nobody ever reads half a file
+ * 		- stop, which tells the workers to give up on what they are doing, and finished, which tells them to exit
+ * Every change is a file being moved into place in one step, so the directory is never in between two states
+ * A unit can be done more than once, if its worker was thought to be dead but wasn't, but it always has the same result,
+ * and the same id, so it is only counted once
+ */
+public class Spool {
+
+	private File directory;
+	private File todo;
+	private File claimed;
+	private File done;
+	private File tmp;
+	private Random random = new Random();
+
+	//Constructs a Spool in a directory, making the directories it needs if they aren't there
+	public Spool(File directory) throws IOException {
+		this.directory = directory;
+		todo = new File(directory, "todo");
+		claimed = new File(directory, "claimed");
+		done = new File(directory, "done");
+		tmp = new File(directory, "tmp");
+		for (File dir : new File[] { todo, claimed, done, tmp }) {
+			Files.createDirectories(dir.toPath());
+		}
+	}
+
+	//Writes the puzzle being searched
+	public void setPuzzle(Puzzle puzzle) throws IOException {
+		File temp = File.createTempFile("puzzle", ".tmp", tmp);
+		try (Writer out = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+			PuzzleText.write(puzzle, out);
+		}
+		move(temp, new File(directory, "puzzle.txt"), true);
+	}
+
+	//returns the puzzle being searched
+	public Puzzle getPuzzle() throws IOException {
+		try (Reader in = Files.newBufferedReader(new File(directory, "puzzle.txt").toPath(), StandardCharsets.UTF_8)) {
+			Puzzle puzzle = new PuzzleText(in).next();
+			if (puzzle == null) throw new IOException("no puzzle in " + directory);
+			return puzzle;
+		}
+	}
+
+	//Puts a unit in todo, unless it is already being done or has been done
+	public void publish(WorkUnit unit) throws IOException {
+		String name = unit.getId() + ".unit";
+		if (isDone(unit) || new File(claimed, name).exists()) return;
+		File temp = File.createTempFile("unit", ".tmp", tmp);
+		unit.write(temp);
+		move(temp, new File(todo, name), true);
+	}
+
+	//Claims a unit from todo, starting from a random one so workers don't all try for the same one
+	//Returns null if there are none left to claim
+	public WorkUnit claim() throws IOException {
+		String[] names = todo.list();
+		if (names == null || names.length == 0) return null;
+		int start = random.nextInt(names.length);
+		for (int i = 0; i < names.length; i++) {
+			String name = names[(start + i) % names.length];
+			File file = new File(claimed, name);
+			try {
+				move(new File(todo, name), file, false);
+			} catch (NoSuchFileException | FileAlreadyExistsException e) {
+				//another worker got it first
+				continue;
+			}
+			//a claimed unit starts out fresh, so it isn't taken back right away
+			file.setLastModified(System.currentTimeMillis());
+			try {
+				return WorkUnit.read(file);
+			} catch (IOException e) {
+				//a unit that can't be read can never be done, so it is put aside where it won't be claimed again
+				move(file, new File(done, name + ".bad"), true);
+				throw e;
+			}
+		}
+		return null;
+	}
+
+	//Touches a claimed unit, so it isn't taken back from a worker that is still doing it
+	public void heartbeat(WorkUnit unit) {
+		new File(claimed, unit.getId() + ".unit").setLastModified(System.currentTimeMillis());
+	}
+
+	//Gives up a claimed unit without doing it
+	public void release(WorkUnit unit) {
+		new File(claimed, unit.getId() + ".unit").delete();
+	}
+
+	//Saves the result of a claimed unit, then lets it go. The units it split off must already be published
+	public void finish(WorkUnit unit, WorkUnit.Result result) throws IOException {
+		File temp = File.createTempFile("result", ".tmp", tmp);
+		result.write(temp);
+		move(temp, new File(done, unit.getId() + ".result"), true);
+		release(unit);
+	}
+
+	//returns true if a unit has been done
+	public boolean isDone(WorkUnit unit) {
+		return new File(done, unit.getId() + ".result").exists();
+	}
+
+	//Puts claimed units that haven't been touched for staleMillis back in todo, for another worker to do
+	//Returns the number of units put back
+	public int recover(long staleMillis) {
+		String[] names = claimed.list();
+		if (names == null) return 0;
+		long now = System.currentTimeMillis();
+		int recovered = 0;
+		for (String name : names) {
+			File file = new File(claimed, name);
+			long touched = file.lastModified();
+			if (touched == 0 || now - touched < staleMillis) continue;
+			try {
+				move(file, new File(todo, name), true);
+				recovered++;
+			} catch (IOException e) {
+				//it was finished or taken back in the meantime
+			}
+		}
+		return recovered;
+	}
+
+	//returns the names of the result files, which are the ids of the units that have been done, with ".result"
+	public List<String> getResultNames() {
+		List<String> names = new ArrayList<String>();
+		String[] files = done.list();
+		if (files != null) {
+			for (String name : files) {
+				if (name.endsWith(".result"))
+					names.add(name);
+			}
+		}
+		return names;
+	}
+
+	//returns the result saved in a result file
+	public WorkUnit.Result readResult(String name) throws IOException {
+		return WorkUnit.Result.read(new File(done, name));
+	}
+
+	//Tells the workers to give up what they are doing
+	public void stop() throws IOException {
+		flag("stop");
+	}
+
+	//returns true if the workers have been told to give up
+	public boolean isStopped() {
+		return new File(directory, "stop").exists();
+	}
+
+	//Tells the workers to exit
+	public void finished() throws IOException {
+		flag("finished");
+	}
+
+	//returns true if the workers have been told to exit
+	public boolean isFinished() {
+		return new File(directory, "finished").exists();
+	}
+
+	//makes an empty file in the directory
+	private void flag(String name) throws IOException {
+		try {
+			Files.createFile(new File(directory, name).toPath());
+		} catch (FileAlreadyExistsException e) {
+			//it is already set
+		}
+	}
+
+	//Moves a file in one step, replacing what is there if replace is true
+	private void move(File from, File to, boolean replace) throws IOException {
+		try {
+			if (replace)
+				Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			else
+				Files.move(from.toPath(), to.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			throw new IOException("the spool directory " + directory + " can't move files in one step", e);
+		}
+	}
+}
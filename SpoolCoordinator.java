@@ -0,0 +1,213 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The purpose of this class is to count the solutions of a puzzle with SpoolWorkers in other processes, and add up their results
+ * It sets up a Spool with the puzzle and one WorkUnit, the empty prefix, which the workers split up as they go.
+ * Every Result lists the ids of the units it split off, so the search is over when there is a result for the first unit,
+ * for every unit it split off, for every unit those split off, and so on. Results can be read in any order,
+ * since a unit can finish before the unit that split it off, so counting them could never show that nothing is missing
+ * A unit whose worker stops touching it is put back in todo for another worker. The workers can be started by hand,
+ * on any machine that can see the directory, or by the coordinator, which starts them again if they die
+ * With -first, the workers are stopped as soon as any solution is found, instead of counting them all
+ * Usage: java SpoolCoordinator [-workers n] [-split nodes] [-stale ms] [-first] directory puzzle-file
+ */
+public class SpoolCoordinator {
+
+	//how long the coordinator waits between looks at the spool
+	private static final long POLL_MILLIS = 200;
+
+	private Spool spool;
+	private File directory;
+	private long staleMillis;
+	private boolean first;
+
+	//the results read so far, by unit id, and what they add up to
+	private Map<String, WorkUnit.Result> results = new HashMap<String, WorkUnit.Result>();
+	private long solutions;
+	private long nodes;
+	private int[] solution;
+	//the ids of the units that can be reached from the first one, through the units they split off, with no result yet
+	private Set<String> waiting = new HashSet<String>();
+
+	//the worker processes started by the coordinator
+	private List<Process> workers = new ArrayList<Process>();
+	private long splitNodes;
+
+	//Constructs a coordinator for a new search of a puzzle, in a directory that must not have a search in it already
+	public SpoolCoordinator(File directory, Puzzle puzzle, long staleMillis, boolean first) throws IOException {
+		if (new File(directory, "puzzle.txt").exists())
+			throw new IOException(directory + " already has a search in it");
+		this.directory = directory;
+		this.spool = new Spool(directory);
+		this.staleMillis = staleMillis;
+		this.first = first;
+		spool.setPuzzle(puzzle);
+		WorkUnit root = new WorkUnit(new int[0]);
+		waiting.add(root.getId());
+		spool.publish(root);
+	}
+
+	//Starts worker processes on this machine, with the same java and classpath as this one
+	public void startWorkers(int count, long splitNodes) throws IOException {
+		this.splitNodes = splitNodes;
+		for (int i = 0; i < count; i++) {
+			workers.add(startWorker(i));
+		}
+	}
+
+	//starts the worker with an index, writing what it prints to worker-index.log in the directory
+	private Process startWorker(int index) throws IOException {
+		String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+		ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "SpoolWorker",
+				"-split", Long.toString(splitNodes), directory.getPath());
+		builder.redirectErrorStream(true);
+		builder.redirectOutput(ProcessBuilder.Redirect.appendTo(new File(directory, "worker-" + index + ".log")));
+		return builder.start();
+	}
+
+	//Waits for the search to be over, then tells the workers to exit
+	//Returns true if every unit was done, or, with -first, a solution was found
+	public boolean run() throws IOException, InterruptedException {
+		try {
+			while (true) {
+				readResults();
+				if (first && solution != null) {
+					spool.stop();
+					return true;
+				}
+				if (waiting.isEmpty())
+					return true;
+				spool.recover(staleMillis);
+				//a worker that died is started again. Its unit will be taken back once it goes stale
+				for (int i = 0; i < workers.size(); i++) {
+					if (!workers.get(i).isAlive())
+						workers.set(i, startWorker(i));
+				}
+				Thread.sleep(POLL_MILLIS);
+			}
+		} finally {
+			spool.finished();
+			for (Process worker : workers) {
+				worker.waitFor();
+			}
+		}
+	}
+
+	//Adds up the results that haven't been read yet, and works out which units are still waiting for one
+	private void readResults() throws IOException {
+		for (String name : spool.getResultNames()) {
+			String id = name.substring(0, name.length() - ".result".length());
+			if (results.containsKey(id)) continue;
+			WorkUnit.Result result = spool.readResult(name);
+			results.put(id, result);
+			solutions += result.getSolutions();
+			nodes += result.getNodes();
+			if (solution == null)
+				solution = result.getSolution();
+			if (waiting.remove(id))
+				reached(id);
+		}
+	}
+
+	//Goes through the units split off from a unit that was just reached and has a result, and the ones they split off,
+	//waiting for the ones with no result yet
+	private void reached(String id) {
+		Deque<String> stack = new ArrayDeque<String>();
+		stack.push(id);
+		while (!stack.isEmpty()) {
+			for (String child : results.get(stack.pop()).getChildren()) {
+				if (results.containsKey(child))
+					stack.push(child);
+				else
+					waiting.add(child);
+			}
+		}
+	}
+
+	//returns the number of solutions found
+	public long getSolutions() {
+		return solutions;
+	}
+
+	//returns the number of pieces placed by every worker
+	public long getNodes() {
+		return nodes;
+	}
+
+	//returns the number of units done
+	public int getUnits() {
+		return results.size();
+	}
+
+	//returns one candidate per spot for the first solution found, as in EdgeTable, or null
+	public int[] getSolution() {
+		return solution;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int count = Runtime.getRuntime().availableProcessors();
+		long splitNodes = SpoolWorker.DEFAULT_SPLIT_NODES;
+		long staleMillis = 10000;
+		boolean first = false;
+		int i = 0;
+		while (i < args.length && args[i].startsWith("-")) {
+			if (args[i].equals("-first")) {
+				first = true;
+				i++;
+				continue;
+			}
+			if (i + 1 >= args.length) break;
+			if (args[i].equals("-workers")) count = Integer.parseInt(args[i + 1]);
+			else if (args[i].equals("-split")) splitNodes = Long.parseLong(args[i + 1]);
+			else if (args[i].equals("-stale")) staleMillis = Long.parseLong(args[i + 1]);
+			i += 2;
+		}
+		if (i != args.length - 2) {
+			System.err.println("Usage: java SpoolCoordinator [-workers n] [-split nodes] [-stale ms] [-first] directory puzzle-file");
+			System.exit(2);
+		}
+		File directory = new File(args[i]);
+		Puzzle puzzle = read(new File(args[i + 1]));
+		long start = System.nanoTime();
+		SpoolCoordinator coordinator = new SpoolCoordinator(directory, puzzle, staleMillis, first);
+		coordinator.startWorkers(count, splitNodes);
+		coordinator.run();
+		long time = System.nanoTime() - start;
+
+		Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+		out.write(String.format("# %d solutions%s, %d units, %d nodes, %d workers, %.3f seconds%n",
+				coordinator.getSolutions(), first ? " (stopped at the first)" : "", coordinator.getUnits(),
+				coordinator.getNodes(), count, time / 1e9));
+		if (coordinator.getSolution() != null) {
+			new EdgeTable(puzzle).apply(puzzle, coordinator.getSolution());
+			PuzzleText.write(puzzle, out);
+		}
+		out.flush();
+	}
+
+	//reads the first puzzle of a PuzzleFile (.puz) or a PuzzleText file
+	private static Puzzle read(File file) throws IOException {
+		if (file.getName().endsWith(".puz"))
+			return new PuzzleFile(file.toPath()).get(0).toPuzzle();
+		try (Reader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			Puzzle puzzle = new PuzzleText(in).next();
+			if (puzzle == null) throw new IOException(file + " has no puzzle in it");
+			return puzzle;
+		}
+	}
+}
@@ -0,0 +1,254 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The purpose of this class is to do WorkUnits from a Spool, in a process of its own, until it is told to exit
+ * A unit is done by placing its prefix, then counting every way of filling the rest of the board, spot by spot, row by row
+ * Every time the search has placed another splitNodes pieces, it splits off the candidates it hasn't tried yet
+ * at the spot nearest the start of the board, and publishes each one as a unit of its own, so idle workers can take them.
+ * Splitting always happens at the same points, so a unit that is done twice splits off the same units both times
+ * While a worker does a unit it keeps touching the claimed file, so the coordinator knows it is still alive
+ * Usage: java SpoolWorker [-split nodes] [-poll ms] directory
+ */
+public class SpoolWorker {
+
+	//the number of pieces placed between splits, by default
+	public static final long DEFAULT_SPLIT_NODES = 200000;
+
+	//how often a claimed unit is touched
+	private static final long HEARTBEAT_MILLIS = 1000;
+
+	private Spool spool;
+	private long splitNodes;
+	private EdgeTable table;
+	//whether each piece is fixed somewhere on the board, so it can't go anywhere else
+	private boolean[] fixedPieces;
+
+	//the search of the unit being done
+	private int spots;
+	private int words;
+	private int[] value;
+	private long[] used;
+	private long[][] remaining;
+	private long nodes;
+	//the ids of the units split off
+	private List<String> children = new ArrayList<String>();
+
+	//the thread that touches the claimed unit
+	private ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "SpoolWorker heartbeat");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	//Constructs a worker for a spool that splits its units every splitNodes pieces
+	public SpoolWorker(Spool spool, long splitNodes) throws IOException {
+		this.spool = spool;
+		this.splitNodes = splitNodes;
+		this.table = new EdgeTable(spool.getPuzzle());
+		this.spots = table.getSpots();
+		this.words = table.getWords();
+		this.fixedPieces = new boolean[table.getPieceCount()];
+		for (int spot = 0; spot < spots; spot++) {
+			if (table.getFixed(spot) >= 0)
+				fixedPieces[table.getFixed(spot) / 4] = true;
+		}
+	}
+
+	//Does units until the spool is finished, waiting pollMillis whenever there are none to claim
+	//Returns the number of units done
+	public int run(long pollMillis) throws IOException, InterruptedException {
+		int count = 0;
+		while (!spool.isFinished()) {
+			final WorkUnit unit = spool.isStopped() ? null : spool.claim();
+			if (unit == null) {
+				Thread.sleep(pollMillis);
+				continue;
+			}
+			if (spool.isDone(unit)) {
+				spool.release(unit);
+				continue;
+			}
+			ScheduledFuture<?> beat = heartbeats.scheduleAtFixedRate(new Runnable() {
+				public void run() {
+					spool.heartbeat(unit);
+				}
+			}, HEARTBEAT_MILLIS, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+			try {
+				WorkUnit.Result result = search(unit);
+				if (result == null) {
+					spool.release(unit);
+				} else {
+					spool.finish(unit, result);
+					count++;
+				}
+			} finally {
+				beat.cancel(false);
+			}
+		}
+		heartbeats.shutdown();
+		return count;
+	}
+
+	//Counts the solutions that start with the unit's prefix, publishing the units it splits off
+	//Returns null if the spool was stopped first
+	public WorkUnit.Result search(WorkUnit unit) throws IOException {
+		int[] prefix = unit.getPrefix();
+		value = new int[spots];
+		used = new long[(table.getPieceCount() + 63) / 64];
+		remaining = new long[spots][words];
+		nodes = 0;
+		children.clear();
+		for (int spot = 0; spot < prefix.length; spot++) {
+			value[spot] = prefix[spot];
+			used[prefix[spot] / 4 >>> 6] |= 1L << (prefix[spot] / 4);
+		}
+		long solutions = 0;
+		int[] solution = null;
+		int top = prefix.length;
+		if (top == spots) {
+			return new WorkUnit.Result(1, 0, new String[0], value.clone());
+		}
+		int spot = top;
+		start(spot);
+		long nextSplit = splitNodes;
+		while (spot >= top) {
+			int candidate = take(spot);
+			if (candidate < 0) {
+				spot--;
+				if (spot >= top)
+					unplace(spot);
+				continue;
+			}
+			value[spot] = candidate;
+			used[candidate / 4 >>> 6] |= 1L << (candidate / 4);
+			nodes++;
+			if (spot + 1 == spots) {
+				solutions++;
+				if (solution == null)
+					solution = value.clone();
+				unplace(spot);
+			} else {
+				spot++;
+				start(spot);
+			}
+			if (nodes >= nextSplit) {
+				if (spool.isStopped()) return null;
+				split(top, spot);
+				nextSplit += splitNodes;
+			}
+		}
+		return new WorkUnit.Result(solutions, nodes, children.toArray(new String[0]), solution);
+	}
+
+	//Publishes the untried candidates at the first spot between top and spot that has any as units of their own,
+	//so this search doesn't try them
+	private void split(int top, int spot) throws IOException {
+		for (int level = top; level <= spot; level++) {
+			long[] candidates = remaining[level];
+			boolean any = false;
+			for (int w = 0; w < words && !any; w++) {
+				any = candidates[w] != 0;
+			}
+			if (!any) continue;
+			int[] prefix = Arrays.copyOf(value, level + 1);
+			for (int w = 0; w < words; w++) {
+				for (long bits = candidates[w]; bits != 0; bits &= bits - 1) {
+					int candidate = w * 64 + Long.numberOfTrailingZeros(bits);
+					if (!isFree(candidate, prefix, level) || (table.getFixed(level) < 0 && fixedPieces[candidate / 4])) continue;
+					prefix[level] = candidate;
+					WorkUnit child = new WorkUnit(prefix);
+					spool.publish(child);
+					children.add(child.getId());
+				}
+				candidates[w] = 0;
+			}
+			return;
+		}
+	}
+
+	//returns true if the piece of a candidate isn't in the first count spots of a prefix
+	private boolean isFree(int candidate, int[] prefix, int count) {
+		for (int i = 0; i < count; i++) {
+			if (prefix[i] / 4 == candidate / 4) return false;
+		}
+		return true;
+	}
+
+	//Works out the candidates for a spot: the one fixed there, or all of them, that fit the pieces above and to the left
+	private void start(int spot) {
+		long[] candidates = remaining[spot];
+		int fixed = table.getFixed(spot);
+		Arrays.fill(candidates, 0);
+		if (fixed >= 0) {
+			candidates[fixed >>> 6] = 1L << fixed;
+		} else {
+			Arrays.fill(candidates, -1L);
+			int count = table.getPieceCount() * 4;
+			if ((count & 63) != 0)
+				candidates[words - 1] = (1L << count) - 1;
+		}
+		int cols = table.getCols();
+		if (spot % cols > 0)
+			and(candidates, table.getFits(value[spot - 1], 1));
+		if (spot >= cols)
+			and(candidates, table.getFits(value[spot - cols], 2));
+	}
+
+	//Takes the next candidate for a spot, skipping ones whose piece is used, or fixed somewhere else
+	//Returns -1 if there are none left
+	private int take(int spot) {
+		long[] candidates = remaining[spot];
+		for (int w = 0; w < words; w++) {
+			while (candidates[w] != 0) {
+				int candidate = w * 64 + Long.numberOfTrailingZeros(candidates[w]);
+				candidates[w] &= candidates[w] - 1;
+				int piece = candidate / 4;
+				if ((used[piece >>> 6] & (1L << piece)) == 0 && (table.getFixed(spot) >= 0 || !fixedPieces[piece]))
+					return candidate;
+			}
+		}
+		return -1;
+	}
+
+	//takes the candidate at a spot back off
+	private void unplace(int spot) {
+		int piece = value[spot] / 4;
+		used[piece >>> 6] &= ~(1L << piece);
+	}
+
+	//ANDs a bitset into candidates
+	private void and(long[] candidates, long[] mask) {
+		for (int w = 0; w < words; w++) {
+			candidates[w] &= mask[w];
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		long splitNodes = DEFAULT_SPLIT_NODES;
+		long pollMillis = 200;
+		int first = 0;
+		while (first + 1 < args.length && args[first].startsWith("-")) {
+			if (args[first].equals("-split")) splitNodes = Long.parseLong(args[first + 1]);
+			else if (args[first].equals("-poll")) pollMillis = Long.parseLong(args[first + 1]);
+			first += 2;
+		}
+		if (first != args.length - 1) {
+			System.err.println("Usage: java SpoolWorker [-split nodes] [-poll ms] directory");
+			System.exit(2);
+		}
+		SpoolWorker worker = new SpoolWorker(new Spool(new File(args[first])), splitNodes);
+		int count = worker.run(pollMillis);
+		System.out.println("# " + count + " units done");
+	}
+}
@@ -0,0 +1,178 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * The purpose of this class is to describe one piece of the search for a puzzle's solutions, so it can be done anywhere
+ * A unit is a prefix: the candidates (piece * 4 + orientation, as in EdgeTable) placed in the first spots, row by row.
+ * Its work is to search every way of filling the rest of the board with the pieces the prefix didn't use
+ * The id of a unit comes from its prefix, so the same unit always has the same id, wherever it was made
+ * A unit is written as one line, "unit" and then the prefix, and the result of doing it is a Result
+ */
+public class WorkUnit {
+
+	private int[] prefix;
+
+	//Constructs a unit that searches everything after a prefix
+	public WorkUnit(int[] prefix) {
+		this.prefix = prefix.clone();
+	}
+
+	//returns the candidates placed in the first spots
+	public int[] getPrefix() {
+		return prefix.clone();
+	}
+
+	//returns the number of spots the prefix fills
+	public int size() {
+		return prefix.length;
+	}
+
+	//returns the id of the unit: a 64 bit FNV-1a hash of its prefix, in hex
+	public String getId() {
+		long hash = 0xcbf29ce484222325L;
+		for (int candidate : prefix) {
+			for (int shift = 0; shift < 32; shift += 8) {
+				hash ^= (candidate >>> shift) & 0xff;
+				hash *= 0x100000001b3L;
+			}
+		}
+		//the length is hashed too, so a prefix of all zeros doesn't look like a shorter one
+		hash ^= prefix.length;
+		hash *= 0x100000001b3L;
+		return String.format("%016x", hash);
+	}
+
+	//Writes the unit to a file
+	public void write(File file) throws IOException {
+		try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			out.write("unit");
+			for (int candidate : prefix) {
+				out.write(' ');
+				out.write(Integer.toString(candidate));
+			}
+			out.write('\n');
+		}
+	}
+
+	//Reads a unit from a file
+	public static WorkUnit read(File file) throws IOException {
+		try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			return new WorkUnit(parse(in.readLine(), "unit", file));
+		}
+	}
+
+	//Reads the numbers after a word on a line, throwing an IOException if the line doesn't start with the word
+	private static int[] parse(String line, String word, File file) throws IOException {
+		if (line == null || !(line.equals(word) || line.startsWith(word + " ")))
+			throw new IOException(file + ": expected " + word);
+		String rest = line.substring(word.length()).trim();
+		if (rest.isEmpty()) return new int[0];
+		String[] tokens = rest.split(" +");
+		int[] numbers = new int[tokens.length];
+		try {
+			for (int i = 0; i < tokens.length; i++) {
+				numbers[i] = Integer.parseInt(tokens[i]);
+			}
+		} catch (NumberFormatException e) {
+			throw new IOException(file + ": " + e.getMessage());
+		}
+		return numbers;
+	}
+
+	public String toString() {
+		return "unit " + getId() + " " + Arrays.toString(prefix);
+	}
+
+	/**
+	 * The result of doing a unit: how many solutions it found, how many pieces it placed,
+	 * the ids of the smaller units it split off for others to do, and the first solution it found, if any
+	 * The solutions of the units it split off are not counted in it, they have results of their own
+	 */
+	public static class Result {
+
+		private long solutions;
+		private long nodes;
+		private String[] children;
+		private int[] solution;
+
+		public Result(long solutions, long nodes, String[] children, int[] solution) {
+			this.solutions = solutions;
+			this.nodes = nodes;
+			this.children = children;
+			this.solution = solution;
+		}
+
+		//returns the number of solutions found
+		public long getSolutions() {
+			return solutions;
+		}
+
+		//returns the number of pieces placed
+		public long getNodes() {
+			return nodes;
+		}
+
+		//returns the ids of the units split off
+		public String[] getChildren() {
+			return children;
+		}
+
+		//returns one candidate per spot, row by row, for the first solution found, or null
+		public int[] getSolution() {
+			return solution;
+		}
+
+		//Writes the result to a file, as lines of "solutions n", "nodes n", "children" and the id of every unit split off,
+		//and "solution ..." if there is one
+		public void write(File file) throws IOException {
+			try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+				out.write("solutions " + solutions + "\nnodes " + nodes + "\nchildren");
+				for (String child : children) {
+					out.write(' ');
+					out.write(child);
+				}
+				out.write('\n');
+				if (solution != null) {
+					out.write("solution");
+					for (int candidate : solution) {
+						out.write(' ');
+						out.write(Integer.toString(candidate));
+					}
+					out.write('\n');
+				}
+			}
+		}
+
+		//Reads a result from a file
+		public static Result read(File file) throws IOException {
+			try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+				long solutions = number(in.readLine(), "solutions", file);
+				long nodes = number(in.readLine(), "nodes", file);
+				String line = in.readLine();
+				if (line == null || !(line.equals("children") || line.startsWith("children ")))
+					throw new IOException(file + ": expected children");
+				String ids = line.substring("children".length()).trim();
+				String[] children = ids.isEmpty() ? new String[0] : ids.split(" +");
+				line = in.readLine();
+				int[] solution = (line == null) ? null : parse(line, "solution", file);
+				return new Result(solutions, nodes, children, solution);
+			}
+		}
+
+		//Reads the number after a word on a line
+		private static long number(String line, String word, File file) throws IOException {
+			if (line == null || !line.startsWith(word + " "))
+				throw new IOException(file + ": expected " + word);
+			try {
+				return Long.parseLong(line.substring(word.length() + 1).trim());
+			} catch (NumberFormatException e) {
+				throw new IOException(file + ": " + e.getMessage());
+			}
+		}
+	}
+}
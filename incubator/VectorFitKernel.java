@@ -0,0 +1,71 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The purpose of this class is to check a batch of candidates against what a spot needs, a whole vector of candidates at a time
+ * The packed Side values of a vector of codes are gathered in one step, then ANDed with the bytes the requirements care about,
+ * and compared to the required values, which gives a vector mask that becomes bits of the mask
+ * When every code is matched, in order, the packed values are loaded straight from the array, with no gather, which is much faster
+ * The codes left over at the end, fewer than a vector, are checked one at a time
+ * This uses the jdk.incubator.vector module, so it is kept apart from the other classes, and has to be compiled and run with it:
+ * 		javac --add-modules jdk.incubator.vector -cp . -d . incubator/VectorFitKernel.java
+ * 		java --add-modules jdk.incubator.vector FitBenchmark
+ * Without it, FitKernel.create() uses the ScalarFitKernel instead
+ */
+public class VectorFitKernel extends FitKernel {
+
+	//the widest vector of ints the processor has. Its length is a power of 2, at most 16, so a vector never spans two longs of the mask
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+	//lane i has bit i set, so the lanes that fit can be ORed together into bits, which is faster than VectorMask.toLong() on JDK 17
+	private static final IntVector LANE_BITS = IntVector.broadcast(SPECIES, 1)
+			.lanewise(VectorOperators.LSHL, IntVector.zero(SPECIES).addIndex(1));
+
+	public VectorFitKernel(EdgeTable table) {
+		super(table);
+	}
+
+	//returns the lanes of a mask as bits
+	private static long toBits(VectorMask<Integer> fits) {
+		return IntVector.zero(SPECIES).blend(LANE_BITS, fits).reduceLanes(VectorOperators.OR) & 0xffffffffL;
+	}
+
+	public void match(int[] codes, int count, int[] required, long[] mask) {
+		clear(mask, count);
+		int care = care(required), want = want(required);
+		int lanes = SPECIES.length();
+		int i = 0;
+		for (; i + lanes <= count; i += lanes) {
+			IntVector sides = IntVector.fromArray(SPECIES, packed, 0, codes, i);
+			VectorMask<Integer> fits = sides.and(care).compare(VectorOperators.EQ, want);
+			mask[i >>> 6] |= toBits(fits) << (i & 63);
+		}
+		for (; i < count; i++) {
+			if ((packed[codes[i]] & care) == want)
+				mask[i >>> 6] |= 1L << i;
+		}
+	}
+
+	public void matchAll(int[] required, long[] mask) {
+		int count = packed.length;
+		clear(mask, count);
+		int care = care(required), want = want(required);
+		int lanes = SPECIES.length();
+		int code = 0;
+		for (; code + lanes <= count; code += lanes) {
+			IntVector sides = IntVector.fromArray(SPECIES, packed, code);
+			VectorMask<Integer> fits = sides.and(care).compare(VectorOperators.EQ, want);
+			mask[code >>> 6] |= toBits(fits) << (code & 63);
+		}
+		for (; code < count; code++) {
+			if ((packed[code] & care) == want)
+				mask[code >>> 6] |= 1L << code;
+		}
+	}
+
+	public String getName() {
+		return "vector " + SPECIES.length() + " lanes";
+	}
+}